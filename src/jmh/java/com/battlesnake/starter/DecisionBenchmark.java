@@ -0,0 +1,127 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import spark.Request;
+import spark.Response;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The move decision path, from the safety filter up to a full /move request.
+ *
+ * The forked JVM keeps back 480ms of the 500ms timeout, so the full request
+ * benchmark measures a 20ms search rather than the production budget.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dorg.slf4j.simpleLogger.defaultLogLevel=warn", "-DSEARCH_MARGIN_MS=480"})
+public class DecisionBenchmark {
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    @Param({"11x11-2", "11x11-4", "19x19-2", "19x19-4"})
+    public String layout;
+
+    private final Snake.Handler handler = new Snake.Handler();
+    private Board board;
+    private Point moveUp;
+    private Point moveDown;
+    private Point moveLeft;
+    private Point moveRight;
+    private ArrayList<Point> smarterMoves;
+    private Simulator simulator;
+    private int[] moves;
+    private Request request;
+    private Response response;
+
+    @Setup
+    public void setUp() throws IOException {
+        String body = Payloads.moveRequest(layout);
+        board = new Board(JSON_MAPPER.readTree(body));
+        Point head = board.getYou().getHead();
+        moveUp = Point.of(head.getX(), head.getY() + 1);
+        moveDown = Point.of(head.getX(), head.getY() - 1);
+        moveLeft = Point.of(head.getX() - 1, head.getY());
+        moveRight = Point.of(head.getX() + 1, head.getY());
+        smarterMoves = handler.getSmarterMoves(board, moveUp, moveDown, moveLeft, moveRight);
+
+        simulator = new Simulator(board.getWidth(), board.getHeight());
+        simulator.load(board);
+        moves = new int[simulator.getSnakeCount()];
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        request = new Request() {
+            @Override
+            public String uri() {
+                return "/move";
+            }
+
+            @Override
+            public String body() {
+                return body;
+            }
+
+            @Override
+            public byte[] bodyAsBytes() {
+                return bytes;
+            }
+        };
+        response = new Response() {
+        };
+    }
+
+    @Benchmark
+    public ArrayList<Point> getSmarterMoves() {
+        return handler.getSmarterMoves(board, moveUp, moveDown, moveLeft, moveRight);
+    }
+
+    @Benchmark
+    public Point chaseFood() {
+        return Snake.Handler.chaseFood(smarterMoves, board);
+    }
+
+    @Benchmark
+    public Point chaseTail() {
+        return Snake.Handler.chaseTail(smarterMoves, board);
+    }
+
+    @Benchmark
+    public int searchDepth6() {
+        return new MoveSearch(board).findMove(Long.MAX_VALUE, 0, 6);
+    }
+
+    @Benchmark
+    public int simulatorStepUndo() {
+        for (int s = 0; s < moves.length; s++) {
+            moves[s] = simulator.isSafe(s, Simulator.UP) ? Simulator.UP : Simulator.RIGHT;
+        }
+        simulator.step(moves);
+        int alive = simulator.getAliveCount();
+        simulator.undo();
+        return alive;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<String, String> processMove() {
+        return handler.process(request, response);
+    }
+}
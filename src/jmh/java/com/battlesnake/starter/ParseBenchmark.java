@@ -0,0 +1,71 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request parsing and Board construction, tree based versus streaming.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class ParseBenchmark {
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    @Param({"11x11-2", "11x11-4", "19x19-2", "19x19-4"})
+    public String layout;
+
+    private String body;
+    private byte[] bodyBytes;
+    private JsonNode tree;
+
+    @Setup
+    public void setUp() throws IOException {
+        body = Payloads.moveRequest(layout);
+        bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        tree = JSON_MAPPER.readTree(body);
+    }
+
+    @Benchmark
+    public JsonNode parseTree() throws IOException {
+        return JSON_MAPPER.readTree(body);
+    }
+
+    @Benchmark
+    public GameState parseStream() throws IOException {
+        return MoveRequestParser.parse(bodyBytes);
+    }
+
+    @Benchmark
+    public Board boardFromTree() {
+        return new Board(tree);
+    }
+
+    @Benchmark
+    public Board parseTreeAndBuildBoard() throws IOException {
+        return new Board(JSON_MAPPER.readTree(body));
+    }
+
+    @Benchmark
+    public Board parseStreamAndBuildBoard() throws IOException {
+        return new Board(MoveRequestParser.parse(bodyBytes));
+    }
+}
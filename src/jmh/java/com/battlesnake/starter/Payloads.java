@@ -0,0 +1,72 @@
+package com.battlesnake.starter;
+
+/**
+ * Builds representative move requests for the benchmarks.
+ *
+ * Snakes spawn near the corners like the official engine does, food is
+ * scattered around the centre, and every snake carries the fields we never
+ * read (latency, shout, squad, customizations) so parsing costs are realistic.
+ */
+public class Payloads {
+
+    private Payloads() {
+    }
+
+    /**
+     * @param layout "WIDTHxHEIGHT-SNAKES", e.g. "11x11-2"
+     */
+    public static String moveRequest(String layout) {
+        String[] parts = layout.split("[x-]");
+        return moveRequest(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+    }
+
+    public static String moveRequest(int width, int height, int snakes) {
+        int[][] spawns = {{1, 1}, {width - 2, height - 2}, {1, height - 2}, {width - 2, 1}};
+        StringBuilder board = new StringBuilder();
+        board.append("{\"height\":").append(height).append(",\"width\":").append(width).append(",\"food\":[");
+        int cx = width / 2;
+        int cy = height / 2;
+        appendPoint(board, cx, cy).append(',');
+        appendPoint(board, cx - 2, cy + 1).append(',');
+        appendPoint(board, cx + 3, cy - 2);
+        board.append("],\"hazards\":[");
+        if (width > 11) {
+            for (int x = 0; x < width; x++) {
+                appendPoint(board, x, 0).append(x == width - 1 ? "" : ",");
+            }
+        }
+        board.append("],\"snakes\":[");
+        String you = null;
+        for (int s = 0; s < snakes; s++) {
+            String snake = snake(s, spawns[s][0], spawns[s][1], spawns[s][0] < cx ? 1 : -1);
+            if (s == 0) {
+                you = snake;
+            }
+            board.append(snake).append(s == snakes - 1 ? "" : ",");
+        }
+        board.append("]}");
+
+        return "{\"game\":{\"id\":\"bench-" + width + "x" + height + "-" + snakes + "\","
+                + "\"ruleset\":{\"name\":\"standard\",\"version\":\"v1.2.3\",\"settings\":{\"foodSpawnChance\":15,\"minimumFood\":1}},"
+                + "\"timeout\":500,\"source\":\"league\"},"
+                + "\"turn\":42,\"board\":" + board + ",\"you\":" + you + "}";
+    }
+
+    private static String snake(int index, int tailX, int y, int direction) {
+        StringBuilder body = new StringBuilder("[");
+        int length = 4;
+        int headX = tailX + direction * (length - 1);
+        for (int i = 0; i < length; i++) {
+            appendPoint(body, headX - direction * i, y).append(i == length - 1 ? "" : ",");
+        }
+        body.append(']');
+        return "{\"id\":\"snake-" + index + "\",\"name\":\"Snake " + index + "\",\"health\":" + (90 - index * 7)
+                + ",\"body\":" + body + ",\"latency\":\"123\",\"head\":" + body.substring(1, body.indexOf("}") + 1)
+                + ",\"length\":" + length + ",\"shout\":\"benchmarking...\",\"squad\":\"\","
+                + "\"customizations\":{\"color\":\"#888888\",\"head\":\"default\",\"tail\":\"default\"}}";
+    }
+
+    private static StringBuilder appendPoint(StringBuilder builder, int x, int y) {
+        return builder.append("{\"x\":").append(x).append(",\"y\":").append(y).append('}');
+    }
+}
@@ -0,0 +1,165 @@
+package com.battlesnake.starter;
+
+import java.util.Arrays;
+
+/**
+ * Flood fill and Voronoi area control over a flat grid of cell indices.
+ *
+ * All scratch space (the BFS queue, distances and owners) is allocated once.
+ * Visited marks are stamped with a generation number instead of being cleared,
+ * so each call only touches the cells it actually reaches. Not thread safe,
+ * give every search worker its own instance.
+ *
+ * Obstacles are described by two optional arrays: occupiedThrough[cell] is the
+ * last turn a shrinking body still covers the cell, and counts[cell] is
+ * non-zero for cells blocked for good. A cell first reached on turn t can be
+ * entered if occupiedThrough[cell] &lt; t and counts[cell] == 0.
+ */
+public class AreaEvaluator {
+    private final int width;
+    private final int height;
+    private final Geometry geometry;
+    private final int[] queue;
+    private final int[] stamp;
+    private final int[] distance;
+    private final int[] owner;
+    private int generation;
+
+    // owner value for cells two sources reach on the same turn
+    private static final int CONTESTED = -1;
+
+    public AreaEvaluator(int width, int height) {
+        this(Geometry.forSize(width, height));
+    }
+
+    // Fills and Voronoi cross the edges of a wrapped geometry
+    public AreaEvaluator(Geometry geometry) {
+        this.width = geometry.getWidth();
+        this.height = geometry.getHeight();
+        this.geometry = geometry;
+        int cells = width * height;
+        this.queue = new int[cells];
+        this.stamp = new int[cells];
+        this.distance = new int[cells];
+        this.owner = new int[cells];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private int nextGeneration() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        return generation;
+    }
+
+    private boolean enterable(int cell, int turn, int[] occupiedThrough, int[] counts) {
+        return (occupiedThrough == null || occupiedThrough[cell] < turn) && (counts == null || counts[cell] == 0);
+    }
+
+    /**
+     * Counts the cells reachable from start, not counting start itself.
+     *
+     * @param start           cell to fill from, usually a head
+     * @param limit           stop once this many cells are found, the caller
+     *                        usually only needs to know there is room for its body
+     * @param turn            turns already played when standing on start
+     * @param occupiedThrough shrinking obstacles, may be null
+     * @param counts          permanent obstacles, may be null
+     */
+    public int floodFill(int start, int limit, int turn, int[] occupiedThrough, int[] counts) {
+        int mark = nextGeneration();
+        int head = 0;
+        int tail = 0;
+        stamp[start] = mark;
+        distance[start] = 0;
+        queue[tail++] = start;
+        int found = 0;
+        while (head < tail && found < limit) {
+            int cell = queue[head++];
+            int nextTurn = turn + distance[cell] + 1;
+            for (int move = 0; move < 4; move++) {
+                int next = geometry.neighbour(cell, move);
+                if (next == Geometry.OFF_BOARD) {
+                    continue;
+                }
+                if (stamp[next] != mark && enterable(next, nextTurn, occupiedThrough, counts)) {
+                    stamp[next] = mark;
+                    distance[next] = distance[cell] + 1;
+                    queue[tail++] = next;
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Multi-source BFS from every head at once. Each cell belongs to whoever
+     * reaches it first; cells reached by two heads on the same turn belong to
+     * nobody.
+     *
+     * @param heads     head cells, index 0 is the snake we score for
+     * @param headCount number of entries of heads in use
+     * @return number of cells owned by heads[0]
+     */
+    public int voronoi(int[] heads, int headCount, int turn, int[] occupiedThrough, int[] counts) {
+        int mark = nextGeneration();
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < headCount; i++) {
+            int cell = heads[i];
+            if (cell < 0) {
+                continue;
+            }
+            if (stamp[cell] == mark) {
+                owner[cell] = CONTESTED;
+                continue;
+            }
+            stamp[cell] = mark;
+            distance[cell] = 0;
+            owner[cell] = i;
+            queue[tail++] = cell;
+        }
+
+        int owned = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int from = owner[cell];
+            if (from == CONTESTED) {
+                continue;
+            }
+            int nextDistance = distance[cell] + 1;
+            for (int move = 0; move < 4; move++) {
+                int next = geometry.neighbour(cell, move);
+                if (next == Geometry.OFF_BOARD) {
+                    continue;
+                }
+                if (stamp[next] != mark) {
+                    if (enterable(next, turn + nextDistance, occupiedThrough, counts)) {
+                        stamp[next] = mark;
+                        distance[next] = nextDistance;
+                        owner[next] = from;
+                        queue[tail++] = next;
+                        if (from == 0) {
+                            owned++;
+                        }
+                    }
+                } else if (distance[next] == nextDistance && owner[next] != from && owner[next] != CONTESTED) {
+                    if (owner[next] == 0) {
+                        owned--;
+                    }
+                    owner[next] = CONTESTED;
+                }
+            }
+        }
+        return owned;
+    }
+}
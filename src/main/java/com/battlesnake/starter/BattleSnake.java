@@ -3,51 +3,81 @@ package com.battlesnake.starter;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 public class BattleSnake {
     private Point head;
-    private ArrayList<Point> aroundHead = new ArrayList<>();
+    // built on first use, the hot paths work on cell indices instead
+    private ArrayList<Point> aroundHead;
     private Point neck;
     private Point tail;
-    private ArrayList<Point> body = new ArrayList<>();
+    // body coordinates packed with GameState.pack, head first
+    private int[] segments;
+    private ArrayList<Point> body;
     private int health;
     private int length;
+    private BitBoard bodyMask;
+    private String id;
+    private final int width;
+    private final int height;
+
+    public BattleSnake(JsonNode snake, int width, int height) {
+        this.width = width;
+        this.height = height;
 
-    public BattleSnake(JsonNode snake) {
         // record health
         this.health = snake.get("health").asInt();
 
-        // record length
-        this.length = snake.get("length").asInt();
+        // record id
+        this.id = snake.path("id").asText(null);
+
+        // record length, counted from the body like MoveRequestParser does
+        JsonNode body = snake.get("body");
+        this.length = body.size();
 
+        // record body
+        this.segments = new int[length];
         for (int i = 0; i < length; i++) {
-            // point for snake section
-            Point temp = new Point(snake.get("body").get(i).get("x").asInt(),
-                    snake.get("body").get(i).get("y").asInt());
+            segments[i] = GameState.pack(body.get(i).get("x").asInt(), body.get(i).get("y").asInt());
+        }
 
-            // record head
-            if (i == 0) {
-                this.head = temp;
-            }
+        recordEnds();
+    }
 
-            // record neck
-            if (i == 1) {
-                this.neck = temp;
-            }
+    public BattleSnake(GameState game, int snake, int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.health = game.getHealth(snake);
+        this.id = game.getSnakeId(snake);
+        this.length = game.getLength(snake);
+        this.segments = new int[length];
+        for (int i = 0; i < length; i++) {
+            segments[i] = game.getBody(snake, i);
+        }
 
-            // record tail
-            if (i == (length - 1)) {
-                this.tail = temp;
-            }
+        recordEnds();
+    }
 
-            // record body
-            body.add(temp);
-        }
+    private void recordEnds() {
+        this.head = point(0);
+        this.neck = length > 1 ? point(1) : null;
+        this.tail = point(length - 1);
+    }
 
-        this.aroundHead.add(new Point(head.getX(), head.getY() + 1));
-        this.aroundHead.add(new Point(head.getX(), head.getY() - 1));
-        this.aroundHead.add(new Point(head.getX() + 1, head.getY()));
-        this.aroundHead.add(new Point(head.getX() - 1, head.getY()));
+    private Point point(int i) {
+        return Point.of(GameState.unpackX(segments[i]), GameState.unpackY(segments[i]));
+    }
+
+    private void recordAroundHead() {
+        this.aroundHead = new ArrayList<>(4);
+        this.aroundHead.add(Point.of(head.getX(), head.getY() + 1));
+        this.aroundHead.add(Point.of(head.getX(), head.getY() - 1));
+        this.aroundHead.add(Point.of(head.getX() + 1, head.getY()));
+        this.aroundHead.add(Point.of(head.getX() - 1, head.getY()));
+    }
+
+    public String getId() {
+        return this.id;
     }
 
     public Point getHead() {
@@ -62,7 +92,35 @@ public class BattleSnake {
         return this.tail;
     }
 
+    /**
+     * Segment i (0 is the head) as a GameState.pack coordinate.
+     */
+    public int getSegment(int i) {
+        return segments[i];
+    }
+
+    /**
+     * Board cell index (y * width + x) of segment i, or Geometry.OFF_BOARD.
+     */
+    public int getCell(int i) {
+        int x = GameState.unpackX(segments[i]);
+        int y = GameState.unpackY(segments[i]);
+        return x >= 0 && y >= 0 && x < width && y < height ? y * width + x : Geometry.OFF_BOARD;
+    }
+
+    // True when both snakes' bodies cover the same coordinates in the same order
+    public boolean sameBody(BattleSnake other) {
+        return Arrays.equals(segments, other.segments);
+    }
+
     public ArrayList<Point> getBody() {
+        if (this.body == null) {
+            ArrayList<Point> points = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                points.add(point(i));
+            }
+            this.body = points;
+        }
         return this.body;
     }
 
@@ -74,7 +132,21 @@ public class BattleSnake {
         return this.length;
     }
 
+    public BitBoard getBodyMask() {
+        if (this.bodyMask == null) {
+            BitBoard mask = new BitBoard(width, height);
+            for (int i = 0; i < length; i++) {
+                mask.set(GameState.unpackX(segments[i]), GameState.unpackY(segments[i]));
+            }
+            this.bodyMask = mask;
+        }
+        return this.bodyMask;
+    }
+
     public ArrayList<Point> getAroundHead() {
+        if (this.aroundHead == null) {
+            recordAroundHead();
+        }
         return this.aroundHead;
     }
 }
@@ -0,0 +1,179 @@
+package com.battlesnake.starter;
+
+import java.util.Arrays;
+
+/**
+ * A set of board cells packed into long words, one bit per cell.
+ *
+ * Cell (x, y) lives at bit index y * width + x, so an 11x11 board fits in two
+ * words and a 25x25 board in ten. All lookups are bounds checked against the
+ * board dimensions and never allocate.
+ */
+public class BitBoard {
+    private final int width;
+    private final int height;
+    private final long[] words;
+
+    // masks of cells that may receive a bit shifted in from the left/right neighbour
+    private final long[] notFirstColumn;
+    private final long[] notLastColumn;
+    private final long[] allCells;
+
+    public BitBoard(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int wordCount = (width * height + 63) >>> 6;
+        this.words = new long[wordCount];
+        this.notFirstColumn = new long[wordCount];
+        this.notLastColumn = new long[wordCount];
+        this.allCells = new long[wordCount];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = y * width + x;
+                long bit = 1L << index;
+                allCells[index >>> 6] |= bit;
+                if (x != 0) {
+                    notFirstColumn[index >>> 6] |= bit;
+                }
+                if (x != width - 1) {
+                    notLastColumn[index >>> 6] |= bit;
+                }
+            }
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    public void set(int x, int y) {
+        if (inBounds(x, y)) {
+            set(index(x, y));
+        }
+    }
+
+    public void set(int index) {
+        words[index >>> 6] |= 1L << index;
+    }
+
+    public void clear(int index) {
+        words[index >>> 6] &= ~(1L << index);
+    }
+
+    public boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    // Out of bounds cells are never set
+    public boolean get(int x, int y) {
+        return inBounds(x, y) && get(index(x, y));
+    }
+
+    public void clearAll() {
+        Arrays.fill(words, 0L);
+    }
+
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.words, 0, words, 0, words.length);
+    }
+
+    public void or(BitBoard other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    public void andNot(BitBoard other) {
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= ~other.words[i];
+        }
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+
+        if (!(obj instanceof BitBoard)) {
+            return false;
+        }
+
+        BitBoard object = (BitBoard) obj;
+
+        return this.width == object.width && this.height == object.height && Arrays.equals(this.words, object.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * width + height) + Arrays.hashCode(words);
+    }
+
+    /**
+     * Writes into dst every cell of this set plus its four orthogonal
+     * neighbours, minus anything in blocked. One step of a flood fill.
+     *
+     * @param blocked cells that may never be entered, may be null
+     * @param dst     receives the result, must not be this set
+     */
+    public void expand(BitBoard blocked, BitBoard dst) {
+        long[] out = dst.words;
+        int n = words.length;
+        for (int i = 0; i < n; i++) {
+            long word = words[i];
+            // x + 1 and x - 1 neighbours, carrying bits across word borders
+            long right = (word << 1) | (i > 0 ? words[i - 1] >>> 63 : 0L);
+            long left = (word >>> 1) | (i + 1 < n ? words[i + 1] << 63 : 0L);
+            long result = word | (right & notFirstColumn[i]) | (left & notLastColumn[i]);
+            result |= shiftedWord(i, width) | shiftedWord(i, -width);
+            result &= allCells[i];
+            if (blocked != null) {
+                result &= ~blocked.words[i];
+            }
+            out[i] = result;
+        }
+    }
+
+    // Word i of this set shifted by the given number of cells (positive moves up the board)
+    private long shiftedWord(int i, int shift) {
+        int bitOffset = i * 64 - shift;
+        int low = Math.floorDiv(bitOffset, 64);
+        int offset = Math.floorMod(bitOffset, 64);
+        long lowWord = low >= 0 && low < words.length ? words[low] : 0L;
+        if (offset == 0) {
+            return lowWord;
+        }
+        long highWord = low + 1 >= 0 && low + 1 < words.length ? words[low + 1] : 0L;
+        return (lowWord >>> offset) | (highWord << (64 - offset));
+    }
+}
@@ -6,80 +6,267 @@ import java.util.ArrayList;
 
 public class Board {
     private BattleSnake you;
-    private BattleSnake opp1;
-    private BattleSnake opp2;
-    private BattleSnake opp3;
-    private BattleSnake opp4;
-    private ArrayList<Point> occupied = new ArrayList<>();
-    private ArrayList<Point> preoccupied = new ArrayList<>();
-    private ArrayList<Food> food = new ArrayList<>();
-
-    private String name = "Manish";
+    // every snake on the board, ourselves included, in board.snakes order
+    private BattleSnake[] snakes;
+    private int snakeCount;
+    // the same snakes without ourselves
+    private BattleSnake[] opponents;
+    private int opponentCount;
+    private int width;
+    private int height;
+    private int timeout;
+    private String gameId;
+    private String ruleset;
+    // edges join in the wrapped ruleset, bodies never shrink in constrictor
+    private Geometry geometry;
+    private boolean constrictor;
+    private int hazardDamage;
+    private int turn;
+    private BitBoard occupied;
+    private BitBoard preoccupied;
+    private BitBoard foodMask;
+    private BitBoard hazards;
+    // food coordinates packed with GameState.pack, Food objects only built on request
+    private int[] food;
+    private int foodCount;
+    private ArrayList<Food> foodList;
 
     public Board(JsonNode moveRequest) {
-        you = new BattleSnake(moveRequest.get("you"));
-        occupied.addAll(you.getBody());
-        occupied.remove(you.getTail());
-
-        if (moveRequest.get("board").get("snakes").get(0) != null && moveRequest.get("board").get("snakes").get(0).get("name").toString() != name) {
-            opp1 = new BattleSnake(moveRequest.get("board").get("snakes").get(0));
-            occupied.addAll(opp1.getBody());
-            occupied.remove(opp1.getTail());
-            preoccupied.addAll(opp1.getAroundHead());
+        JsonNode board = moveRequest.get("board");
+        JsonNode rules = moveRequest.path("game").path("ruleset");
+        ruleset = rules.path("name").asText("standard");
+        allocate(board.path("width").asInt(11), board.path("height").asInt(11));
+        timeout = moveRequest.path("game").path("timeout").asInt(500);
+        gameId = moveRequest.path("game").path("id").asText(null);
+        hazardDamage = rules.path("settings").path("hazardDamagePerTurn").asInt(MoveSearch.HAZARD_DAMAGE);
+        turn = moveRequest.path("turn").asInt();
+
+        if (moveRequest.path("you").path("body").size() == 0) {
+            throw new IllegalArgumentException("Move request has no \"you\" snake with a body");
+        }
+        BattleSnake requested = new BattleSnake(moveRequest.get("you"), width, height);
+        JsonNode list = board.path("snakes");
+        allocateSnakes(list.size() + 1);
+        for (JsonNode snake : list) {
+            BattleSnake parsed = new BattleSnake(snake, width, height);
+            add(isSame(parsed, requested) ? requested : parsed, requested);
+        }
+        if (you == null) {
+            add(requested, requested);
+        }
+
+        JsonNode foodList = board.get("food");
+        this.food = new int[foodList.size()];
+        for (JsonNode food : foodList) {
+            addFood(food.get("x").asInt(), food.get("y").asInt());
+        }
+
+        for (JsonNode hazard : board.path("hazards")) {
+            hazards.set(hazard.get("x").asInt(), hazard.get("y").asInt());
+        }
+    }
+
+    // Build from a streamed request, see MoveRequestParser
+    public Board(GameState game) {
+        ruleset = game.getRuleset();
+        allocate(game.getWidth(), game.getHeight());
+        timeout = game.getTimeout();
+        gameId = game.getGameId();
+        hazardDamage = game.getHazardDamage();
+        turn = game.getTurn();
+
+        if (game.getYouIndex() < 0 || game.getLength(game.getYouIndex()) == 0) {
+            throw new IllegalArgumentException("Move request has no \"you\" snake with a body");
+        }
+        allocateSnakes(game.getSnakeCount());
+        BattleSnake requested = new BattleSnake(game, game.getYouIndex(), width, height);
+        for (int i = 0; i < game.getSnakeCount(); i++) {
+            add(i == game.getYouIndex() ? requested : new BattleSnake(game, i, width, height), requested);
+        }
+
+        this.food = new int[game.getFoodCount()];
+        for (int i = 0; i < game.getFoodCount(); i++) {
+            addFood(GameState.unpackX(game.getFood(i)), GameState.unpackY(game.getFood(i)));
+        }
+
+        for (int i = 0; i < game.getHazardCount(); i++) {
+            hazards.set(GameState.unpackX(game.getHazard(i)), GameState.unpackY(game.getHazard(i)));
         }
+    }
 
-        if (moveRequest.get("board").get("snakes").get(1) != null && moveRequest.get("board").get("snakes").get(1).get("name").toString() != name) {
-            opp2 = new BattleSnake(moveRequest.get("board").get("snakes").get(1));
-            occupied.addAll(opp2.getBody());
-            occupied.remove(opp2.getTail());
-            preoccupied.addAll(opp2.getAroundHead());
+    // Snakes are told apart by id, by body only when a request leaves ids out
+    private static boolean isSame(BattleSnake a, BattleSnake b) {
+        if (a.getId() != null && b.getId() != null) {
+            return a.getId().equals(b.getId());
         }
+        return a.sameBody(b);
+    }
+
+    private void addFood(int x, int y) {
+        food[foodCount++] = GameState.pack(x, y);
+        foodMask.set(x, y);
+    }
+
+    private void allocateSnakes(int capacity) {
+        snakes = new BattleSnake[capacity];
+        opponents = new BattleSnake[capacity];
+    }
 
-        if (moveRequest.get("board").get("snakes").get(2) != null && moveRequest.get("board").get("snakes").get(2).get("name").toString() != name) {
-            opp3 = new BattleSnake(moveRequest.get("board").get("snakes").get(2));
-            occupied.addAll(opp3.getBody());
-            occupied.remove(opp3.getTail());
-            preoccupied.addAll(opp3.getAroundHead());
+    private void add(BattleSnake snake, BattleSnake requested) {
+        snakes[snakeCount++] = snake;
+        occupy(snake);
+        if (snake == requested) {
+            you = snake;
+        } else {
+            opponents[opponentCount++] = snake;
+            preoccupy(snake);
         }
+    }
 
-        if (moveRequest.get("board").get("snakes").get(3) != null && moveRequest.get("board").get("snakes").get(3).get("name").toString() != name) {
-            opp4 = new BattleSnake(moveRequest.get("board").get("snakes").get(3));
-            occupied.addAll(opp4.getBody());
-            occupied.remove(opp4.getTail());
-            preoccupied.addAll(opp4.getAroundHead());
+    private void allocate(int width, int height) {
+        this.width = width;
+        this.height = height;
+        geometry = Geometry.forSize(width, height, "wrapped".equals(ruleset));
+        constrictor = "constrictor".equals(ruleset);
+        occupied = new BitBoard(width, height);
+        preoccupied = new BitBoard(width, height);
+        foodMask = new BitBoard(width, height);
+        hazards = new BitBoard(width, height);
+    }
+
+    // Mark every segment except the tail, which moves out of the way this turn unless the snake grows
+    private void occupy(BattleSnake snake) {
+        int staying = constrictor ? snake.getLength() : snake.getLength() - 1;
+        for (int i = 0; i < staying; i++) {
+            occupied.set(GameState.unpackX(snake.getSegment(i)), GameState.unpackY(snake.getSegment(i)));
         }
+    }
 
-        for (JsonNode food : moveRequest.get("board").get("food")) {
-            this.food.add(new Food(new Point(food.get("x").asInt(), food.get("y").asInt())));
+    private void preoccupy(BattleSnake snake) {
+        int cell = snake.getCell(0);
+        if (cell == Geometry.OFF_BOARD) {
+            return;
+        }
+        for (int move = 0; move < 4; move++) {
+            int next = geometry.neighbour(cell, move);
+            if (next != Geometry.OFF_BOARD) {
+                preoccupied.set(next);
+            }
         }
     }
 
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Milliseconds the engine waits for our answer
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public String getRuleset() {
+        return ruleset;
+    }
+
+    // Board topology for this ruleset, wrapped boards have no edges
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    public boolean isWrapped() {
+        return geometry.isWrapped();
+    }
+
+    // Constrictor snakes grow every turn, so tails never move
+    public boolean isConstrictor() {
+        return constrictor;
+    }
+
+    // Extra health lost per turn spent in a hazard
+    public int getHazardDamage() {
+        return hazardDamage;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    // True when (x, y) is on the board and no body segment will be there next turn
+    public boolean isSafe(int x, int y) {
+        return occupied.inBounds(x, y) && !occupied.get(occupied.index(x, y));
+    }
+
+    // True when the snake can move that way without hitting a wall or a body that stays put
+    public boolean isSafe(BattleSnake snake, int move) {
+        int head = snake.getCell(0);
+        int next = head == Geometry.OFF_BOARD ? Geometry.OFF_BOARD : geometry.neighbour(head, move);
+        return next != Geometry.OFF_BOARD && !occupied.get(next);
+    }
+
     public BattleSnake getYou() {
         return you;
     }
 
-    public BattleSnake getOpp1() {
-        return opp1;
+    public int getSnakeCount() {
+        return snakeCount;
     }
 
-    public BattleSnake getOpp2() {
-        return opp2;
+    // Snake i of board.snakes, ourselves included
+    public BattleSnake getSnake(int i) {
+        return snakes[i];
     }
 
-    public BattleSnake getOpp3() {
-        return opp3;
+    public int getOpponentCount() {
+        return opponentCount;
+    }
+
+    // Opponent i, in board.snakes order with ourselves left out
+    public BattleSnake getOpponent(int i) {
+        return opponents[i];
     }
 
     // Does not include tails
-    public ArrayList<Point> getOccupied() {
+    public BitBoard getOccupied() {
         return occupied;
     }
 
-    public ArrayList<Point> getPreoccupied() {
+    public BitBoard getPreoccupied() {
         return preoccupied;
     }
 
+    public BitBoard getFoodMask() {
+        return foodMask;
+    }
+
+    public BitBoard getHazards() {
+        return hazards;
+    }
+
+    public int getFoodCount() {
+        return foodCount;
+    }
+
+    // Piece i packed with GameState.pack
+    public int getFood(int i) {
+        return food[i];
+    }
+
     public ArrayList<Food> getFood() {
-        return food;
+        if (foodList == null) {
+            ArrayList<Food> list = new ArrayList<>(foodCount);
+            for (int i = 0; i < foodCount; i++) {
+                list.add(new Food(Point.of(GameState.unpackX(food[i]), GameState.unpackY(food[i]))));
+            }
+            foodList = list;
+        }
+        return foodList;
     }
 }
@@ -0,0 +1,142 @@
+package com.battlesnake.starter;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How {@link MoveSearch} scores positions for one ruleset, as a list of
+ * weighted scoring stages.
+ *
+ * Leaf stages (health, room, food, length, tail, hazard) are summed at every
+ * leaf; root stages (area control, head-to-head risk) are applied once per
+ * root move. Each ruleset has its own weights, and an evaluation only keeps
+ * the leaf stages whose weight is not zero, in two flat arrays the search
+ * loops over. Weights are per ruleset and hunger, so every game of the same
+ * kind shares one instance.
+ *
+ * Every stage except health and length scores 0 or less, which is what lets
+ * {@link #upperBound(int, int)} bound the leaves below a node.
+ */
+public final class Evaluation {
+    static final int HEALTH = 0;
+    // only when the head cannot reach as many cells as the body is long
+    static final int ROOM = 1;
+    static final int FOOD = 2;
+    static final int LENGTH = 3;
+    static final int TAIL = 4;
+    static final int HAZARD = 5;
+    static final int AREA = 6;
+    static final int HEAD_TO_HEAD = 7;
+    static final int STAGES = 8;
+    static final String[] NAMES = {"health", "room", "food", "length", "tail", "hazard", "area", "head_to_head"};
+
+    private static final ConcurrentHashMap<String, Evaluation> CACHE = new ConcurrentHashMap<>();
+
+    private final String ruleset;
+    private final boolean hungry;
+    private final int[] weights;
+    private final int[] leafStages;
+    private final int[] leafWeights;
+
+    private Evaluation(String ruleset, boolean hungry, int[] weights) {
+        this.ruleset = ruleset;
+        this.hungry = hungry;
+        this.weights = weights;
+        int count = 0;
+        for (int stage = 0; stage < AREA; stage++) {
+            if (weights[stage] != 0) {
+                count++;
+            }
+        }
+        this.leafStages = new int[count];
+        this.leafWeights = new int[count];
+        count = 0;
+        for (int stage = 0; stage < AREA; stage++) {
+            if (weights[stage] != 0) {
+                leafStages[count] = stage;
+                leafWeights[count++] = weights[stage];
+            }
+        }
+    }
+
+    /**
+     * The evaluation for our snake on the given board.
+     */
+    public static Evaluation forBoard(Board board) {
+        String ruleset = board.getRuleset() == null ? "standard" : board.getRuleset();
+        boolean hungry = isHungry(board.getYou(), ruleset);
+        return CACHE.computeIfAbsent(ruleset + (hungry ? "/hungry" : ""), key -> new Evaluation(ruleset, hungry, weights(ruleset, hungry)));
+    }
+
+    /**
+     * Whether the snake should go for food: when low on health, short, or of odd
+     * length. Constrictor snakes grow every turn and never need food.
+     */
+    public static boolean isHungry(BattleSnake you, String ruleset) {
+        if ("constrictor".equals(ruleset)) {
+            return false;
+        }
+        return you.getHealth() < 17 || you.getLength() < 4 || you.getLength() % 2 != 0;
+    }
+
+    private static int[] weights(String ruleset, boolean hungry) {
+        int[] w = new int[STAGES];
+        w[HEALTH] = 1;
+        w[ROOM] = 1;
+        w[FOOD] = hungry ? 10 : 0;
+        w[LENGTH] = hungry ? 1000 : 0;
+        w[TAIL] = hungry ? 0 : 10;
+        w[AREA] = MoveSearch.TERRITORY_WEIGHT;
+        w[HEAD_TO_HEAD] = MoveSearch.HEAD_TO_HEAD_RISK;
+        switch (ruleset) {
+            case "royale":
+                // the safe zone shrinks, standing in it costs more than health shows
+                w[HAZARD] = 50;
+                w[AREA] = 8;
+                break;
+            case "constrictor":
+                // bodies never shrink and health stays full, only space matters
+                w[HEALTH] = 0;
+                w[TAIL] = 0;
+                w[ROOM] = 2;
+                w[AREA] = 15;
+                break;
+            default:
+                break;
+        }
+        return w;
+    }
+
+    public String getRuleset() {
+        return ruleset;
+    }
+
+    public boolean isHungry() {
+        return hungry;
+    }
+
+    // Tells evaluations apart in transposition table keys
+    public long key() {
+        return ((long) ruleset.hashCode() << 1) | (hungry ? 1 : 0);
+    }
+
+    public int weight(int stage) {
+        return weights[stage];
+    }
+
+    // Leaf stages with a weight, in evaluation order
+    int[] leafStages() {
+        return leafStages;
+    }
+
+    int[] leafWeights() {
+        return leafWeights;
+    }
+
+    /**
+     * Highest leaf score reachable within the given number of plies by a snake
+     * now this long.
+     */
+    public int upperBound(int length, int remaining) {
+        return 100 * weights[HEALTH] + (length + remaining) * weights[LENGTH];
+    }
+}
@@ -0,0 +1,164 @@
+package com.battlesnake.starter;
+
+import java.util.Arrays;
+
+/**
+ * What we remember about one game between turns: the opponents' habits and
+ * the reply our last search planned. Nothing about the position itself is
+ * carried over, every turn still builds its {@link Board} from the request
+ * and searches it from scratch.
+ *
+ * The session keeps last turn's board. Each turn it works out which way every
+ * snake went from where its head moved, and shows the opponents' moves,
+ * together with the board they were made on, to the session's
+ * {@link OpponentModel}. A skipped turn or a board of another size is not
+ * explained, the next turn starts over from that board.
+ *
+ * The planned reply is the only search result that outlives a turn.
+ * Transposition entries are keyed relative to the root board, and the solo
+ * search moves opponents along a fixed schedule rather than as they really
+ * move, so last turn's nodes are not positions this turn's search reaches.
+ */
+public class GameSession {
+    private final String gameId;
+    private volatile long lastSeen;
+
+    private Board previous;
+    // slot -> snake id and the move it made onto the current board, slot 0 is us
+    private String[] snakeIds = new String[0];
+    private int[] moves = new int[0];
+    private int observedTurns;
+
+    private final OpponentModel model = new OpponentModel();
+
+    private int predictedHead = -1;
+    private int plannedMove = TranspositionTable.NO_MOVE;
+
+    public GameSession(String gameId) {
+        this.gameId = gameId;
+        this.lastSeen = System.currentTimeMillis();
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    void touch() {
+        lastSeen = System.currentTimeMillis();
+    }
+
+    /**
+     * Records the moves that led from last turn's board to this one, and
+     * keeps this one for the next turn.
+     */
+    public synchronized void recordTurn(Board board) {
+        touch();
+        int count = board.getOpponentCount() + 1;
+        if (snakeIds.length < count) {
+            snakeIds = new String[count];
+            moves = new int[count];
+        }
+        Arrays.fill(snakeIds, null);
+        Arrays.fill(moves, -1);
+        boolean follows = previous != null && previous.getGeometry() == board.getGeometry()
+                && board.getTurn() == previous.getTurn() + 1;
+        boolean observed = false;
+        for (int s = 0; s < count; s++) {
+            BattleSnake snake = s == 0 ? board.getYou() : board.getOpponent(s - 1);
+            snakeIds[s] = snake.getId();
+            BattleSnake before = follows ? find(previous, snake.getId()) : null;
+            if (before == null) {
+                continue;
+            }
+            moves[s] = direction(before.getCell(0), snake.getCell(0), board.getGeometry());
+            if (moves[s] >= 0) {
+                observed = true;
+                if (s > 0) {
+                    model.observe(snake.getId(), previous, before, moves[s]);
+                }
+            }
+        }
+        if (observed) {
+            observedTurns++;
+        }
+        previous = board;
+    }
+
+    private BattleSnake find(Board board, String id) {
+        if (id == null) {
+            return null;
+        }
+        for (int s = 0; s < board.getSnakeCount(); s++) {
+            if (id.equals(board.getSnake(s).getId())) {
+                return board.getSnake(s);
+            }
+        }
+        return null;
+    }
+
+    private int direction(int from, int to, Geometry geometry) {
+        for (int move = 0; move < 4; move++) {
+            if (from != Geometry.OFF_BOARD && to != Geometry.OFF_BOARD && geometry.neighbour(from, move) == to) {
+                return move;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Move the snake in each slot made onto the last board, if it could be
+     * worked out. Slot 0 is us, slot i + 1 is Board.getOpponent(i).
+     *
+     * @return index into {@link MoveSearch#MOVES}, or -1
+     */
+    public synchronized int getLastMove(int slot) {
+        return slot < moves.length ? moves[slot] : -1;
+    }
+
+    public synchronized String getSnakeId(int slot) {
+        return snakeIds[slot];
+    }
+
+    // Turns whose moves could be worked out from the turn before
+    public synchronized int getObservedTurns() {
+        return observedTurns;
+    }
+
+    /**
+     * Predicts each opponent's next move from what it has done so far this game.
+     *
+     * @return probabilities per opponent, indexed like Board.getOpponent(i) and then
+     *         {@link MoveSearch#MOVES}
+     */
+    public synchronized double[][] predictOpponents(Board board) {
+        double[][] predictions = new double[board.getOpponentCount()][4];
+        for (int o = 0; o < board.getOpponentCount(); o++) {
+            model.predict(board, board.getOpponent(o), predictions[o]);
+        }
+        return predictions;
+    }
+
+    public synchronized int getObservations(String snakeId) {
+        return model.getObservations(snakeId);
+    }
+
+    /**
+     * Remembers the reply we intend to play once our head reaches nextHead.
+     */
+    public synchronized void plan(int nextHead, int move) {
+        this.predictedHead = nextHead;
+        this.plannedMove = move;
+    }
+
+    /**
+     * @return the planned move if our head is where we expected, or
+     *         TranspositionTable.NO_MOVE
+     */
+    public synchronized int getPlannedMove(int head) {
+        return head == predictedHead ? plannedMove : TranspositionTable.NO_MOVE;
+    }
+}
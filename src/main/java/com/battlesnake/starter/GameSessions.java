@@ -0,0 +1,78 @@
+package com.battlesnake.starter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sessions of the games currently being played, keyed by game id.
+ *
+ * Sessions are created on /start (or on the first /move of a game we missed
+ * the start of) and dropped on /end. Games whose /end never arrives are
+ * evicted once idle for SESSION_IDLE_MS, and the map never holds more than
+ * SESSION_MAX sessions, least recently used go first.
+ */
+public class GameSessions {
+    public static final int MAX_SESSIONS = Integer.getInteger("SESSION_MAX", 1024);
+    public static final long IDLE_MILLIS = Long.getLong("SESSION_IDLE_MS", 120_000L);
+
+    private final int maxSessions;
+    private final long idleMillis;
+    private final LinkedHashMap<String, GameSession> sessions;
+
+    public GameSessions() {
+        this(MAX_SESSIONS, IDLE_MILLIS);
+    }
+
+    public GameSessions(int maxSessions, long idleMillis) {
+        this.maxSessions = maxSessions;
+        this.idleMillis = idleMillis;
+        // access order, so the eldest entry is the least recently used
+        this.sessions = new LinkedHashMap<String, GameSession>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GameSession> eldest) {
+                return size() > GameSessions.this.maxSessions;
+            }
+        };
+    }
+
+    public synchronized GameSession start(String gameId) {
+        evictIdle(System.currentTimeMillis());
+        GameSession session = new GameSession(gameId);
+        sessions.put(gameId, session);
+        return session;
+    }
+
+    /**
+     * @return the session of the game, created if it does not exist yet
+     */
+    public synchronized GameSession get(String gameId) {
+        evictIdle(System.currentTimeMillis());
+        GameSession session = sessions.get(gameId);
+        if (session == null) {
+            session = new GameSession(gameId);
+            sessions.put(gameId, session);
+        }
+        session.touch();
+        return session;
+    }
+
+    public synchronized void end(String gameId) {
+        sessions.remove(gameId);
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    // Least recently used first, so we can stop at the first session still in use
+    private void evictIdle(long now) {
+        Iterator<GameSession> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().getLastSeen() < idleMillis) {
+                return;
+            }
+            it.remove();
+        }
+    }
+}
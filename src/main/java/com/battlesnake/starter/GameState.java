@@ -0,0 +1,208 @@
+package com.battlesnake.starter;
+
+import java.util.Arrays;
+
+/**
+ * Flat, reusable holder for everything we read out of a move request.
+ *
+ * Coordinates are packed into a single int with {@link #pack(int, int)} so the
+ * buffers never hold objects. Buffers only ever grow, so a pooled instance
+ * stops allocating after the first few requests.
+ */
+public class GameState {
+    String gameId;
+    String ruleset = "standard";
+    // ruleset.settings.hazardDamagePerTurn
+    int hazardDamage = MoveSearch.HAZARD_DAMAGE;
+    int timeout = 500;
+    int turn;
+    int width = 11;
+    int height = 11;
+
+    int snakeCount;
+    int youIndex = -1;
+    String[] snakeIds = new String[4];
+    String[] snakeNames = new String[4];
+    int[] health = new int[4];
+    int[] length = new int[4];
+    int[][] bodies = new int[4][16];
+
+    int foodCount;
+    int[] food = new int[16];
+    int hazardCount;
+    int[] hazards = new int[16];
+
+    // "you" is parsed on its own and matched against the board snakes afterwards
+    String youId;
+    String youName;
+    int youHealth;
+    int youLength;
+    int[] youBody = new int[16];
+
+    public static int pack(int x, int y) {
+        return (x << 16) | (y & 0xFFFF);
+    }
+
+    public static int unpackX(int point) {
+        return point >> 16;
+    }
+
+    public static int unpackY(int point) {
+        return (short) point;
+    }
+
+    public void reset() {
+        gameId = null;
+        ruleset = "standard";
+        hazardDamage = MoveSearch.HAZARD_DAMAGE;
+        timeout = 500;
+        turn = 0;
+        width = 11;
+        height = 11;
+        snakeCount = 0;
+        youIndex = -1;
+        foodCount = 0;
+        hazardCount = 0;
+        youId = null;
+        youName = null;
+        youHealth = 0;
+        youLength = 0;
+    }
+
+    // Returns the index of a fresh snake slot, growing the buffers if needed
+    int addSnake() {
+        if (snakeCount == health.length) {
+            int capacity = snakeCount * 2;
+            snakeIds = Arrays.copyOf(snakeIds, capacity);
+            snakeNames = Arrays.copyOf(snakeNames, capacity);
+            health = Arrays.copyOf(health, capacity);
+            length = Arrays.copyOf(length, capacity);
+            bodies = Arrays.copyOf(bodies, capacity);
+            for (int i = snakeCount; i < capacity; i++) {
+                bodies[i] = new int[16];
+            }
+        }
+        snakeIds[snakeCount] = null;
+        snakeNames[snakeCount] = null;
+        health[snakeCount] = 0;
+        length[snakeCount] = 0;
+        return snakeCount++;
+    }
+
+    static int[] grow(int[] buffer, int size) {
+        return size < buffer.length ? buffer : Arrays.copyOf(buffer, buffer.length * 2);
+    }
+
+    // Point "you" at its entry in board.snakes, appending it if the board did not list it
+    void resolveYou() {
+        for (int i = 0; i < snakeCount; i++) {
+            if (isYou(i)) {
+                youIndex = i;
+                return;
+            }
+        }
+        if (youId == null && youLength == 0) {
+            youIndex = -1;
+            return;
+        }
+        int slot = addSnake();
+        snakeIds[slot] = youId;
+        snakeNames[slot] = youName;
+        health[slot] = youHealth;
+        length[slot] = youLength;
+        if (bodies[slot].length < youLength) {
+            bodies[slot] = new int[youBody.length];
+        }
+        System.arraycopy(youBody, 0, bodies[slot], 0, youLength);
+        youIndex = slot;
+    }
+
+    // Told apart by id like Board does, by body only when a request leaves ids out
+    private boolean isYou(int snake) {
+        if (snakeIds[snake] != null && youId != null) {
+            return snakeIds[snake].equals(youId);
+        }
+        if (youLength == 0 || length[snake] != youLength) {
+            return false;
+        }
+        for (int i = 0; i < youLength; i++) {
+            if (bodies[snake][i] != youBody[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public String getRuleset() {
+        return ruleset;
+    }
+
+    public int getHazardDamage() {
+        return hazardDamage;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getSnakeCount() {
+        return snakeCount;
+    }
+
+    public int getYouIndex() {
+        return youIndex;
+    }
+
+    public String getSnakeId(int snake) {
+        return snakeIds[snake];
+    }
+
+    public String getSnakeName(int snake) {
+        return snakeNames[snake];
+    }
+
+    public int getHealth(int snake) {
+        return health[snake];
+    }
+
+    public int getLength(int snake) {
+        return length[snake];
+    }
+
+    // Packed coordinate of a body segment, 0 is the head
+    public int getBody(int snake, int segment) {
+        return bodies[snake][segment];
+    }
+
+    public int getFoodCount() {
+        return foodCount;
+    }
+
+    public int getFood(int i) {
+        return food[i];
+    }
+
+    public int getHazardCount() {
+        return hazardCount;
+    }
+
+    public int getHazard(int i) {
+        return hazards[i];
+    }
+}
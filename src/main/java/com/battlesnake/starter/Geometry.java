@@ -0,0 +1,120 @@
+package com.battlesnake.starter;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lookup tables for one board size: cell coordinates, the neighbour in each
+ * direction and the distance between any two cells, so hot loops index
+ * arrays instead of dividing, bounds checking or allocating Points.
+ *
+ * Wrapped boards join opposite edges: every cell has four neighbours and
+ * distances are measured around the torus. Distances are empty-board path
+ * lengths, Manhattan on a bounded board. Tables are built once per size and
+ * mode and never modified, so every game of that size shares them.
+ */
+public class Geometry {
+    public static final int OFF_BOARD = -1;
+    // boards up to this many cells get a full cell-to-cell distance table (25x25 takes 760KB)
+    static final int DISTANCE_TABLE_CELLS = 625;
+
+    private static final ConcurrentHashMap<Long, Geometry> SIZES = new ConcurrentHashMap<>();
+
+    private final int width;
+    private final int height;
+    private final int cells;
+    private final boolean wrapped;
+    private final int[] xs;
+    private final int[] ys;
+    // neighbours[cell * 4 + move], OFF_BOARD past an edge unless wrapped
+    private final int[] neighbours;
+    private final short[] distances;
+
+    private Geometry(int width, int height, boolean wrapped) {
+        this.width = width;
+        this.height = height;
+        this.cells = width * height;
+        this.wrapped = wrapped;
+        this.xs = new int[cells];
+        this.ys = new int[cells];
+        this.neighbours = new int[cells * 4];
+        for (int cell = 0; cell < cells; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            xs[cell] = x;
+            ys[cell] = y;
+            for (int move = 0; move < 4; move++) {
+                int nx = x + MoveSearch.DX[move];
+                int ny = y + MoveSearch.DY[move];
+                if (wrapped) {
+                    nx = (nx + width) % width;
+                    ny = (ny + height) % height;
+                }
+                boolean inside = nx >= 0 && ny >= 0 && nx < width && ny < height;
+                neighbours[cell * 4 + move] = inside ? ny * width + nx : OFF_BOARD;
+            }
+        }
+        if (cells <= DISTANCE_TABLE_CELLS) {
+            this.distances = new short[cells * cells];
+            for (int a = 0; a < cells; a++) {
+                for (int b = 0; b < cells; b++) {
+                    distances[a * cells + b] = (short) compute(a, b);
+                }
+            }
+        } else {
+            this.distances = null;
+        }
+    }
+
+    public static Geometry forSize(int width, int height) {
+        return forSize(width, height, false);
+    }
+
+    public static Geometry forSize(int width, int height, boolean wrapped) {
+        long key = ((long) width << 32) | ((long) height << 1) | (wrapped ? 1 : 0);
+        return SIZES.computeIfAbsent(key, size -> new Geometry(width, height, wrapped));
+    }
+
+    private int compute(int a, int b) {
+        int dx = Math.abs(xs[a] - xs[b]);
+        int dy = Math.abs(ys[a] - ys[b]);
+        if (wrapped) {
+            dx = Math.min(dx, width - dx);
+            dy = Math.min(dy, height - dy);
+        }
+        return dx + dy;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    public boolean isWrapped() {
+        return wrapped;
+    }
+
+    public int x(int cell) {
+        return xs[cell];
+    }
+
+    public int y(int cell) {
+        return ys[cell];
+    }
+
+    // Cell reached by moving from cell in the given direction, or OFF_BOARD
+    public int neighbour(int cell, int move) {
+        return neighbours[cell * 4 + move];
+    }
+
+    // Fewest moves from a to b on an empty board
+    public int distance(int a, int b) {
+        return distances != null ? distances[a * cells + b] : compute(a, b);
+    }
+}
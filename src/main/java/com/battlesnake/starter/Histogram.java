@@ -0,0 +1,84 @@
+package com.battlesnake.starter;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Fixed-bucket histogram that can be recorded into from any thread without
+ * locking. Each observation is one binary search and two atomic adds, so it is
+ * cheap enough to sit on the /move path.
+ *
+ * Written out in the Prometheus text format as cumulative le buckets plus
+ * _sum and _count.
+ */
+public class Histogram {
+    private final String name;
+    private final String labels;
+    private final double[] bounds;
+    // one count per bound, plus the +Inf bucket
+    private final AtomicLongArray counts;
+    private final DoubleAdder sum = new DoubleAdder();
+
+    /**
+     * @param name   metric name, shared by every histogram of the family
+     * @param labels label pairs without braces, e.g. route="/move", or empty
+     * @param bounds ascending upper bounds of the buckets
+     */
+    public Histogram(String name, String labels, double... bounds) {
+        this.name = name;
+        this.labels = labels;
+        this.bounds = bounds.clone();
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(double value) {
+        int bucket = Arrays.binarySearch(bounds, value);
+        if (bucket < 0) {
+            bucket = -bucket - 1;
+        }
+        counts.incrementAndGet(bucket);
+        sum.add(value);
+    }
+
+    // Records a duration as seconds, the Prometheus base unit
+    public void recordNanos(long nanos) {
+        record(nanos / 1e9);
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public double getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Appends the samples of this histogram. Buckets are read one at a time, so
+     * a scrape racing with record() may be off by the observations in flight.
+     */
+    public void writeTo(StringBuilder out) {
+        String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts.get(i);
+            out.append(name).append("_bucket{").append(labels).append(separator)
+                    .append("le=\"").append(bounds[i]).append("\"} ").append(cumulative).append('\n');
+        }
+        cumulative += counts.get(bounds.length);
+        out.append(name).append("_bucket{").append(labels).append(separator)
+                .append("le=\"+Inf\"} ").append(cumulative).append('\n');
+        String braces = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(braces).append(' ').append(sum.sum()).append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(cumulative).append('\n');
+    }
+}
@@ -0,0 +1,98 @@
+package com.battlesnake.starter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Front end on the JDK's built-in HttpServer. One selector thread accepts and
+ * reads connections without blocking, so idle keep-alive connections from
+ * thousands of games cost no threads; only requests ready to be handled are
+ * passed to the fixed pool of SERVER_THREADS workers.
+ */
+public class JdkHttpServer implements SnakeServer {
+    private static final Logger LOG = LoggerFactory.getLogger(JdkHttpServer.class);
+    private static final int BACKLOG = Integer.getInteger("SERVER_BACKLOG", 1024);
+
+    private HttpServer server;
+    private ExecutorService workers;
+
+    @Override
+    public void start(int port, Snake.Handler handler) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not listen on port " + port, e);
+        }
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(THREADS, task -> {
+            Thread thread = new Thread(task, "http-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/", exchange -> serve(exchange, handler));
+        server.setExecutor(workers);
+        server.start();
+    }
+
+    @Override
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void stop() {
+        server.stop(0);
+        workers.shutdown();
+    }
+
+    private void serve(HttpExchange exchange, Snake.Handler handler) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/metrics")) {
+                respond(exchange, 200, "text/plain; version=0.0.4; charset=utf-8",
+                        Metrics.scrape().getBytes(StandardCharsets.UTF_8));
+            } else if (Metrics.request(path) == null) {
+                respond(exchange, 404, "text/plain", new byte[0]);
+            } else {
+                respond(exchange, 200, Responses.CONTENT_TYPE, handler.serve(path, readBody(exchange.getRequestBody())));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Something went wrong!", e);
+            respond(exchange, 500, "text/plain", new byte[0]);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String type, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", type);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.battlesnake.starter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and search statistics of the server, served on GET /metrics in the
+ * Prometheus text format.
+ *
+ * Everything is recorded into {@link Histogram}s, which need no locks, so the
+ * request threads never wait on each other or on a scrape.
+ */
+public final class Metrics {
+    static final String[] ROUTES = {"/", "/start", "/move", "/end"};
+
+    // 50us .. 1s, the interesting range of a move is a few ms to the timeout
+    private static final double[] SECONDS = {0.00005, 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01,
+            0.025, 0.05, 0.1, 0.2, 0.3, 0.4, 0.5, 0.75, 1};
+    private static final double[] HEADROOM = {0, 0.005, 0.01, 0.025, 0.05, 0.1, 0.15, 0.2, 0.3, 0.4, 0.5};
+    private static final double[] RATES = {1e3, 1e4, 1e5, 2.5e5, 5e5, 1e6, 2.5e6, 5e6, 1e7, 2.5e7, 5e7, 1e8};
+    // 100ns .. 1ms, for single evaluation stages
+    private static final double[] STAGE_SECONDS = {1e-7, 2.5e-7, 5e-7, 1e-6, 2.5e-6, 5e-6, 1e-5, 2.5e-5, 5e-5, 1e-4,
+            2.5e-4, 1e-3};
+    private static final double[] DEPTHS = {1, 2, 3, 4, 6, 8, 10, 12, 14, 16, 20, 24, 32, 48, 64};
+
+    private static final Histogram[] REQUEST = new Histogram[ROUTES.length];
+    private static final Histogram[] PARSE = new Histogram[ROUTES.length];
+
+    static {
+        for (int i = 0; i < ROUTES.length; i++) {
+            String route = "route=\"" + ROUTES[i] + "\"";
+            REQUEST[i] = new Histogram("snake_request_seconds", route, SECONDS);
+            PARSE[i] = new Histogram("snake_parse_seconds", route, SECONDS);
+        }
+    }
+
+    public static final Histogram BOARD_BUILD = new Histogram("snake_board_build_seconds", "", SECONDS);
+    public static final Histogram DECISION = new Histogram("snake_decision_seconds", "", SECONDS);
+    public static final Histogram NODES_PER_SECOND = new Histogram("snake_search_nodes_per_second", "", RATES);
+    public static final Histogram DEPTH = new Histogram("snake_search_depth", "", DEPTHS);
+    // game.timeout minus the time from receiving a move to answering it, negative means we were late
+    public static final Histogram HEADROOM_SECONDS = new Histogram("snake_timeout_headroom_seconds", "", HEADROOM);
+
+    // one per Evaluation stage, leaf stages are sampled
+    public static final Histogram[] EVALUATION_STAGE = new Histogram[Evaluation.STAGES];
+
+    static {
+        for (int i = 0; i < Evaluation.STAGES; i++) {
+            EVALUATION_STAGE[i] = new Histogram("snake_evaluation_stage_seconds",
+                    "stage=\"" + Evaluation.NAMES[i] + "\"", STAGE_SECONDS);
+        }
+    }
+
+    public static final Histogram ADMISSION_WAIT = new Histogram("snake_admission_wait_seconds", "", SECONDS);
+    // moves answered without a search because every search slot stayed busy
+    public static final LongAdder ADMISSION_REJECTED = new LongAdder();
+    // moves answered from the opening book instead of searched
+    public static final LongAdder BOOK_HITS = new LongAdder();
+
+    private Metrics() {
+    }
+
+    /**
+     * @return the histogram of whole requests to the route, or null for an unknown route
+     */
+    public static Histogram request(String route) {
+        int i = route(route);
+        return i < 0 ? null : REQUEST[i];
+    }
+
+    /**
+     * @return the histogram of request body parsing on the route, or null for an unknown route
+     */
+    public static Histogram parse(String route) {
+        int i = route(route);
+        return i < 0 ? null : PARSE[i];
+    }
+
+    private static int route(String route) {
+        for (int i = 0; i < ROUTES.length; i++) {
+            if (ROUTES[i].equals(route)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+        family(out, "Time from receiving a request to returning its response.", REQUEST);
+        family(out, "Time spent parsing request bodies.", PARSE);
+        family(out, "Time spent building the Board of a move.", BOARD_BUILD);
+        family(out, "Time spent choosing a move once the Board is built.", DECISION);
+        family(out, "Search nodes visited per second of a move.", NODES_PER_SECOND);
+        family(out, "Deepest completed search iteration of a move.", DEPTH);
+        family(out, "game.timeout minus the time taken to answer a move.", HEADROOM_SECONDS);
+        family(out, "Time spent in each evaluation stage of the search.", EVALUATION_STAGE);
+        family(out, "Time moves waited for a search slot.", ADMISSION_WAIT);
+        out.append("# HELP snake_admission_rejected_total Moves answered without searching because no search slot freed up.\n");
+        out.append("# TYPE snake_admission_rejected_total counter\n");
+        out.append("snake_admission_rejected_total ").append(ADMISSION_REJECTED.sum()).append('\n');
+        out.append("# HELP snake_book_hits_total Moves answered from the opening book without searching.\n");
+        out.append("# TYPE snake_book_hits_total counter\n");
+        out.append("snake_book_hits_total ").append(BOOK_HITS.sum()).append('\n');
+        return out.toString();
+    }
+
+    private static void family(StringBuilder out, String help, Histogram... histograms) {
+        String name = histograms[0].getName();
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        for (Histogram histogram : histograms) {
+            histogram.writeTo(out);
+        }
+    }
+}
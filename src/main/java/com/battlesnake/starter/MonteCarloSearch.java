@@ -0,0 +1,425 @@
+package com.battlesnake.starter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Monte Carlo tree search over the moves of every snake at once.
+ *
+ * Moves are simultaneous, so each tree node keeps separate UCT statistics per
+ * snake (decoupled UCT): every living snake picks its own move by UCB1 from
+ * its own counts at the node, and the joint move leads to the child. Below
+ * the tree a rollout plays cheap random moves, avoiding walls, bodies and
+ * cells next to longer heads, for at most ROLLOUT_TURNS turns. A snake scores
+ * 0 dead, 1 as the last one standing and 1/n while n snakes are still alive.
+ *
+ * Root parallel: the calling thread and WORKERS - 1 threads of
+ * {@link MoveSearch#POOL} each grow their own tree on their own
+ * {@link Simulator} until the deadline, and root visit counts are summed at
+ * the end. WORKERS is this decision's share of the pool when MAX_DECISIONS
+ * searches run at once, so one game never holds every pool thread until its
+ * deadline while another game's tasks wait behind it. Trees live in flat
+ * primitive arrays that are handed back when a search ends and reused by the
+ * next, so a search allocates nothing per node.
+ */
+public class MonteCarloSearch implements Search {
+    // nodes per tree, a full tree stops growing and keeps refining what it has
+    static final int MAX_NODES = Integer.getInteger("MCTS_NODES", 1 << 16);
+    static final int ROLLOUT_TURNS = Integer.getInteger("MCTS_ROLLOUT_TURNS", 40);
+    static final double EXPLORATION = 0.7;
+    // weight of the opponent model's prediction on a root reply, fading with visits
+    static final double PRIOR_WEIGHT = 1.0;
+    // visits a reply needs before plannedReply trusts it
+    static final int MIN_PLAN_VISITS = 16;
+
+    // trees per decision, counting the one grown on the calling thread
+    static final int WORKERS = Math.max(1, MoveSearch.POOL.getParallelism() / Snake.Handler.MAX_DECISIONS);
+
+    // idle trees, so there are only ever as many as have been grown at once
+    private static final ConcurrentLinkedQueue<Tree> TREES = new ConcurrentLinkedQueue<>();
+
+    private final Board state;
+    private final double[][] replies;
+    private final int snakeCount;
+    // our most visited move on the following turn, after each of our moves now
+    private final int[] planned = {TranspositionTable.NO_MOVE, TranspositionTable.NO_MOVE,
+            TranspositionTable.NO_MOVE, TranspositionTable.NO_MOVE};
+    private long plannedVisits = -1;
+
+    private long nodes;
+    private int depthReached;
+
+    public MonteCarloSearch(Board state, double[][] replies) {
+        this.state = state;
+        this.replies = replies;
+        this.snakeCount = state.getOpponentCount() + 1;
+    }
+
+    /**
+     * What one tree found. Copied out before the tree is handed back for the
+     * next search to reuse.
+     */
+    static final class Result {
+        final long[] visits = new long[4];
+        final int[] planned = new int[4];
+        long rootVisits;
+        long steps;
+        int deepest;
+    }
+
+    @Override
+    public int findMove(long deadline, int preferred) {
+        List<ForkJoinTask<Result>> tasks = new ArrayList<>(WORKERS - 1);
+        for (int w = 1; w < WORKERS; w++) {
+            long seed = Zobrist.mix(System.nanoTime() + w);
+            tasks.add(MoveSearch.POOL.submit(() -> grow(deadline, preferred, seed)));
+        }
+        Result own = grow(deadline, preferred, Zobrist.mix(System.nanoTime()));
+
+        nodes = 0;
+        depthReached = 0;
+        long[] visits = new long[4];
+        for (int w = 0; w < WORKERS; w++) {
+            Result result = w == 0 ? own : tasks.get(w - 1).join();
+            if (result == null) {
+                continue;
+            }
+            nodes += result.steps;
+            depthReached = Math.max(depthReached, result.deepest);
+            for (int m = 0; m < 4; m++) {
+                visits[m] += result.visits[m];
+            }
+            // plans come from the biggest tree
+            if (result.rootVisits > plannedVisits) {
+                plannedVisits = result.rootVisits;
+                System.arraycopy(result.planned, 0, planned, 0, 4);
+            }
+        }
+        int best = preferred;
+        for (int m = 0; m < 4; m++) {
+            if (visits[m] > visits[best]) {
+                best = m;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public int plannedReply(int move) {
+        return planned[move];
+    }
+
+    @Override
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Grows this thread's tree until the deadline, null if the deadline passed before it started
+    private Result grow(long deadline, int preferred, long seed) {
+        if (System.nanoTime() >= deadline) {
+            return null;
+        }
+        Tree tree = TREES.poll();
+        if (tree == null) {
+            tree = new Tree();
+        }
+        try {
+            tree.reset(state, snakeCount, seed);
+            do {
+                tree.iterate(preferred, replies);
+            } while (System.nanoTime() < deadline);
+            return tree.result();
+        } finally {
+            TREES.offer(tree);
+        }
+    }
+
+    /**
+     * One search thread's tree and simulator. Node n's per-snake statistics are at
+     * n * stride + snake * 4 + move; joint moves pack two bits per snake.
+     */
+    static final class Tree {
+        private Simulator simulator;
+        private Geometry geometry;
+        private int snakeCount;
+        private int stride;
+
+        private int[] visits = new int[0];
+        private int[] firstChild = new int[0];
+        private int[] nextSibling = new int[0];
+        private long[] joint = new long[0];
+        private int[] moveVisits = new int[0];
+        private float[] moveReward = new float[0];
+        private int nodeCount;
+
+        // selection path, reused every iteration
+        private int[] pathNodes = new int[0];
+        private int[] pathMoves = new int[0];
+        private int[] moves = new int[0];
+        private double[] reward = new double[0];
+        private long random;
+
+        private long steps;
+        private int deepest;
+
+        void reset(Board state, int snakeCount, long seed) {
+            if (simulator == null || simulator.getWidth() != state.getWidth() || simulator.getHeight() != state.getHeight()) {
+                simulator = new Simulator(state.getWidth(), state.getHeight());
+            }
+            geometry = state.getGeometry();
+            simulator.load(state);
+            this.snakeCount = snakeCount;
+            this.stride = snakeCount * 4;
+            if (visits.length < MAX_NODES) {
+                visits = new int[MAX_NODES];
+                firstChild = new int[MAX_NODES];
+                nextSibling = new int[MAX_NODES];
+                joint = new long[MAX_NODES];
+            }
+            if (moveVisits.length < MAX_NODES * stride) {
+                moveVisits = new int[MAX_NODES * stride];
+                moveReward = new float[MAX_NODES * stride];
+            }
+            if (moves.length < snakeCount) {
+                moves = new int[snakeCount];
+                reward = new double[snakeCount];
+            }
+            random = seed == 0 ? 1 : seed;
+            steps = 0;
+            deepest = 0;
+            nodeCount = 0;
+            newNode(0);
+        }
+
+        private int newNode(long jointMove) {
+            int node = nodeCount++;
+            visits[node] = 0;
+            firstChild[node] = -1;
+            nextSibling[node] = -1;
+            joint[node] = jointMove;
+            Arrays.fill(moveVisits, node * stride, node * stride + stride, 0);
+            Arrays.fill(moveReward, node * stride, node * stride + stride, 0f);
+            return node;
+        }
+
+        // Selection and expansion, then a rollout, then backing up the result
+        void iterate(int preferred, double[][] replies) {
+            int node = 0;
+            int depth = 0;
+            while (!isOver()) {
+                ensurePath(depth + 1);
+                long jointMove = 0;
+                for (int s = 0; s < snakeCount; s++) {
+                    int move = simulator.isAlive(s) ? select(node, s, depth == 0 ? preferred : -1,
+                            depth == 0 && s > 0 && replies != null ? replies[s - 1] : null) : 0;
+                    moves[s] = move;
+                    pathMoves[depth * snakeCount + s] = move;
+                    jointMove |= (long) move << (2 * s);
+                }
+                pathNodes[depth++] = node;
+                simulator.step(moves);
+                steps++;
+
+                int child = findChild(node, jointMove);
+                if (child < 0) {
+                    child = nodeCount < MAX_NODES ? newNode(jointMove) : -1;
+                    if (child >= 0) {
+                        nextSibling[child] = firstChild[node];
+                        firstChild[node] = child;
+                    }
+                    node = child;
+                    break;
+                }
+                node = child;
+            }
+            deepest = Math.max(deepest, depth);
+
+            int played = rollout();
+            score();
+            for (int i = 0; i < played + depth; i++) {
+                simulator.undo();
+            }
+
+            for (int d = 0; d < depth; d++) {
+                int n = pathNodes[d];
+                visits[n]++;
+                for (int s = 0; s < snakeCount; s++) {
+                    int slot = n * stride + s * 4 + pathMoves[d * snakeCount + s];
+                    moveVisits[slot]++;
+                    moveReward[slot] += (float) reward[s];
+                }
+            }
+            // the node the path ended on, if the tree had room for it
+            if (node >= 0) {
+                visits[node]++;
+            }
+        }
+
+        Result result() {
+            Result result = new Result();
+            result.rootVisits = visits[0];
+            result.steps = steps;
+            result.deepest = deepest;
+            for (int m = 0; m < 4; m++) {
+                result.visits[m] = moveVisits[m];
+                result.planned[m] = plannedReply(m);
+            }
+            return result;
+        }
+
+        // Our most visited move in the most visited child after our move
+        private int plannedReply(int move) {
+            int bestChild = -1;
+            for (int child = firstChild[0]; child >= 0; child = nextSibling[child]) {
+                if ((joint[child] & 3) == move && (bestChild < 0 || visits[child] > visits[bestChild])) {
+                    bestChild = child;
+                }
+            }
+            if (bestChild < 0 || visits[bestChild] < MIN_PLAN_VISITS) {
+                return TranspositionTable.NO_MOVE;
+            }
+            int offset = bestChild * stride;
+            int best = 0;
+            for (int m = 1; m < 4; m++) {
+                if (moveVisits[offset + m] > moveVisits[offset + best]) {
+                    best = m;
+                }
+            }
+            return moveVisits[offset + best] == 0 ? TranspositionTable.NO_MOVE : best;
+        }
+
+        private void ensurePath(int depth) {
+            if (pathNodes.length <= depth) {
+                pathNodes = Arrays.copyOf(pathNodes, Math.max(64, depth * 2));
+            }
+            if (pathMoves.length < pathNodes.length * snakeCount) {
+                pathMoves = Arrays.copyOf(pathMoves, pathNodes.length * snakeCount);
+            }
+        }
+
+        private int findChild(int node, long jointMove) {
+            for (int child = firstChild[node]; child >= 0; child = nextSibling[child]) {
+                if (joint[child] == jointMove) {
+                    return child;
+                }
+            }
+            return -1;
+        }
+
+        // UCB1 over the snake's safe moves, untried ones first
+        private int select(int node, int snake, int preferred, double[] prior) {
+            int offset = node * stride + snake * 4;
+            if (snake == 0 && preferred >= 0 && moveVisits[offset + preferred] == 0 && simulator.isSafe(0, preferred)) {
+                return preferred;
+            }
+            int best = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double logVisits = Math.log(Math.max(visits[node], 1));
+            for (int m = 0; m < 4; m++) {
+                if (!simulator.isSafe(snake, m)) {
+                    continue;
+                }
+                int n = moveVisits[offset + m];
+                if (n == 0) {
+                    return m;
+                }
+                double value = moveReward[offset + m] / n + EXPLORATION * Math.sqrt(logVisits / n);
+                if (prior != null) {
+                    value += PRIOR_WEIGHT * prior[m] / (n + 1);
+                }
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = m;
+                }
+            }
+            // no safe move, it dies whatever it does
+            return best < 0 ? Simulator.UP : best;
+        }
+
+        private boolean isOver() {
+            return !simulator.isAlive(0) || (snakeCount > 1 && simulator.getAliveCount() <= 1);
+        }
+
+        private int rollout() {
+            int played = 0;
+            while (played < ROLLOUT_TURNS && !isOver()) {
+                for (int s = 0; s < snakeCount; s++) {
+                    moves[s] = simulator.isAlive(s) ? policy(s) : 0;
+                }
+                simulator.step(moves);
+                played++;
+            }
+            steps += played;
+            return played;
+        }
+
+        // Random among the safe moves, skipping cells a longer head can also reach if possible
+        private int policy(int snake) {
+            int safe = 0;
+            int calm = 0;
+            int safeCount = 0;
+            int calmCount = 0;
+            for (int m = 0; m < 4; m++) {
+                if (simulator.isSafe(snake, m)) {
+                    safe |= 1 << m;
+                    safeCount++;
+                    if (!nearLongerHead(snake, simulator.neighbour(simulator.getHead(snake), m))) {
+                        calm |= 1 << m;
+                        calmCount++;
+                    }
+                }
+            }
+            if (calmCount > 0) {
+                return pick(calm, calmCount);
+            }
+            return safeCount > 0 ? pick(safe, safeCount) : Simulator.UP;
+        }
+
+        private boolean nearLongerHead(int snake, int cell) {
+            for (int t = 0; t < snakeCount; t++) {
+                if (t == snake || !simulator.isAlive(t) || simulator.getLength(t) < simulator.getLength(snake)) {
+                    continue;
+                }
+                int head = simulator.getHead(t);
+                if (geometry.distance(head, cell) == 1) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // The k-th set bit of mask, k uniformly random below count
+        private int pick(int mask, int count) {
+            int k = (int) ((next() >>> 33) % count);
+            for (int m = 0; m < 4; m++) {
+                if ((mask & (1 << m)) != 0 && k-- == 0) {
+                    return m;
+                }
+            }
+            return Simulator.UP;
+        }
+
+        // xorshift64
+        private long next() {
+            random ^= random << 13;
+            random ^= random >>> 7;
+            random ^= random << 17;
+            return random;
+        }
+
+        private void score() {
+            int alive = simulator.getAliveCount();
+            for (int s = 0; s < snakeCount; s++) {
+                reward[s] = simulator.isAlive(s) ? 1.0 / alive : 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Single pass, token streaming reader for move requests.
+ *
+ * Fills a {@link GameState} straight from the Jackson token stream without
+ * building a JsonNode tree. Fields we never look at (shout, latency, squad,
+ * customizations, ...) are skipped at the token level.
+ */
+public class MoveRequestParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ThreadLocal<GameState> POOL = ThreadLocal.withInitial(GameState::new);
+
+    private MoveRequestParser() {
+    }
+
+    /**
+     * Parses into this thread's pooled state. The returned instance is reused by
+     * the next call on the same thread, so do not hold on to it.
+     */
+    public static GameState parse(byte[] body) throws IOException {
+        return parse(body, POOL.get());
+    }
+
+    public static GameState parse(String body) throws IOException {
+        GameState game = POOL.get();
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return parse(parser, game);
+        }
+    }
+
+    public static GameState parse(byte[] body, GameState game) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return parse(parser, game);
+        }
+    }
+
+    private static GameState parse(JsonParser parser, GameState game) throws IOException {
+        game.reset();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Move request must be a JSON object");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "game":
+                    expect(parser, JsonToken.START_OBJECT, field);
+                    parseGame(parser, game);
+                    break;
+                case "turn":
+                    game.turn = parser.getValueAsInt();
+                    break;
+                case "board":
+                    expect(parser, JsonToken.START_OBJECT, field);
+                    parseBoard(parser, game);
+                    break;
+                case "you":
+                    expect(parser, JsonToken.START_OBJECT, field);
+                    parseYou(parser, game);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        game.resolveYou();
+        return game;
+    }
+
+    private static void parseGame(JsonParser parser, GameState game) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    game.gameId = parser.getValueAsString();
+                    break;
+                case "timeout":
+                    game.timeout = parser.getValueAsInt();
+                    break;
+                case "ruleset":
+                    expect(parser, JsonToken.START_OBJECT, field);
+                    parseRuleset(parser, game);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private static void parseRuleset(JsonParser parser, GameState game) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("name")) {
+                game.ruleset = parser.getValueAsString();
+            } else if (field.equals("settings") && parser.currentToken() == JsonToken.START_OBJECT) {
+                parseSettings(parser, game);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void parseSettings(JsonParser parser, GameState game) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("hazardDamagePerTurn")) {
+                game.hazardDamage = parser.getValueAsInt(MoveSearch.HAZARD_DAMAGE);
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void parseBoard(JsonParser parser, GameState game) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "width":
+                    game.width = parser.getValueAsInt();
+                    break;
+                case "height":
+                    game.height = parser.getValueAsInt();
+                    break;
+                case "food":
+                    expect(parser, JsonToken.START_ARRAY, field);
+                    while (nextElement(parser)) {
+                        game.food = GameState.grow(game.food, game.foodCount);
+                        game.food[game.foodCount++] = parsePoint(parser);
+                    }
+                    break;
+                case "hazards":
+                    expect(parser, JsonToken.START_ARRAY, field);
+                    while (nextElement(parser)) {
+                        game.hazards = GameState.grow(game.hazards, game.hazardCount);
+                        game.hazards[game.hazardCount++] = parsePoint(parser);
+                    }
+                    break;
+                case "snakes":
+                    expect(parser, JsonToken.START_ARRAY, field);
+                    while (nextElement(parser)) {
+                        expect(parser, JsonToken.START_OBJECT, field);
+                        parseSnake(parser, game, game.addSnake());
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private static void parseSnake(JsonParser parser, GameState game, int slot) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    game.snakeIds[slot] = parser.getValueAsString();
+                    break;
+                case "name":
+                    game.snakeNames[slot] = parser.getValueAsString();
+                    break;
+                case "health":
+                    game.health[slot] = parser.getValueAsInt();
+                    break;
+                case "body":
+                    expect(parser, JsonToken.START_ARRAY, field);
+                    int count = 0;
+                    while (nextElement(parser)) {
+                        game.bodies[slot] = GameState.grow(game.bodies[slot], count);
+                        game.bodies[slot][count++] = parsePoint(parser);
+                    }
+                    // the body array is authoritative, "length" always matches it
+                    game.length[slot] = count;
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private static void parseYou(JsonParser parser, GameState game) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "id":
+                    game.youId = parser.getValueAsString();
+                    break;
+                case "name":
+                    game.youName = parser.getValueAsString();
+                    break;
+                case "health":
+                    game.youHealth = parser.getValueAsInt();
+                    break;
+                case "body":
+                    expect(parser, JsonToken.START_ARRAY, field);
+                    int count = 0;
+                    while (nextElement(parser)) {
+                        game.youBody = GameState.grow(game.youBody, count);
+                        game.youBody[count++] = parsePoint(parser);
+                    }
+                    game.youLength = count;
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    // Reads {"x": .., "y": ..} with the parser positioned on its START_OBJECT
+    private static int parsePoint(JsonParser parser) throws IOException {
+        expect(parser, JsonToken.START_OBJECT, "point");
+        int x = 0;
+        int y = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("x")) {
+                x = parser.getValueAsInt();
+            } else if (field.equals("y")) {
+                y = parser.getValueAsInt();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return GameState.pack(x, y);
+    }
+
+    // Rejects a value of the wrong shape, whose fields the loops above would otherwise read as its parent's
+    private static void expect(JsonParser parser, JsonToken token, String field) throws IOException {
+        if (parser.currentToken() != token) {
+            throw new JsonParseException(parser, "Expected " + token + " for \"" + field + "\", found " + parser.currentToken());
+        }
+    }
+
+    // Moves to the next element of an array, false at its end
+    private static boolean nextElement(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new JsonParseException(parser, "Unexpected end of input inside an array");
+        }
+        return token != JsonToken.END_ARRAY;
+    }
+}
@@ -0,0 +1,624 @@
+package com.battlesnake.starter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Iterative deepening lookahead over our own moves.
+ *
+ * Opponents are treated as bodies that shrink from the tail one segment per
+ * turn, so a cell blocked now may be free a few plies down. Under the
+ * constrictor ruleset bodies never shrink and we grow every ply instead, and
+ * on wrapped boards moves and distances cross the edges. Each completed
+ * depth replaces the best root move, and the search stops as soon as the
+ * deadline passes, so {@link #findMove(long, int)} always answers in time with
+ * the deepest fully searched result.
+ *
+ * Root moves and their first replies are searched as separate tasks on one
+ * {@link ForkJoinPool} shared by every game in the JVM. Workers publish the
+ * best score seen so far and skip subtrees that cannot beat it, so more cores
+ * means deeper iterations within the same budget.
+ *
+ * Results are cached in a {@link TranspositionTable} shared by all workers,
+ * keyed by the Zobrist hash of the root board plus our snake's path-dependent
+ * state, so different move orders reaching the same position are searched once.
+ */
+public class MoveSearch implements Search {
+    public static final String[] MOVES = {"up", "down", "left", "right"};
+    static final int[] DX = {0, 0, -1, 1};
+    static final int[] DY = {1, -1, 0, 0};
+
+    // Time kept back from game.timeout for network latency, in milliseconds
+    public static final long MARGIN_MS = Long.getLong("SEARCH_MARGIN_MS", 150L);
+
+    // Bounded so concurrent games queue for cores instead of oversubscribing them
+    static final ForkJoinPool POOL = new ForkJoinPool(
+            Integer.getInteger("SEARCH_THREADS", Runtime.getRuntime().availableProcessors()));
+
+    static final int MAX_DEPTH = 64;
+    static final int LOSS = -1_000_000;
+    static final int HEAD_TO_HEAD_RISK = 100_000;
+    // opponent moves predicted less likely than this only count for a share of the head-to-head risk
+    static final double UNLIKELY_REPLY = 0.1;
+    static final int UNLIKELY_RISK_DIVISOR = 10;
+    // penalty for a leaf whose head cannot reach as many cells as the body is long
+    static final int TRAPPED = 50_000;
+    // bonus per cell we reach before any opponent after our first move
+    static final int TERRITORY_WEIGHT = 5;
+    static final int HAZARD_DAMAGE = 14;
+    // subtrees with fewer plies left than this are searched inline rather than forked
+    static final int SPLIT_DEPTH = 4;
+    // occupiedThrough value of a cell whose body never moves away
+    static final int FOREVER = Integer.MAX_VALUE;
+    // one leaf in this many (a power of two) has its evaluation stages timed
+    static final int EVALUATION_SAMPLE = 1024;
+
+    static final TranspositionTable TABLE = new TranspositionTable(TranspositionTable.DEFAULT_MB);
+
+    private final int width;
+    private final int height;
+    private final Geometry geometry;
+    private final Evaluation evaluation;
+    private final int hazardDamage;
+    // constrictor: every snake grows each turn, so tails never leave their cell
+    private final boolean growing;
+
+    // last ply (counted from now) an opponent segment still covers each cell,
+    // our own body is written in temporarily while measuring room at a leaf
+    private final int[] occupiedThrough;
+    private final int[] opponentHeads;
+    // cells an equal or longer opponent head can reach next turn, and those it is likely to
+    private final BitBoard headDanger;
+    private final BitBoard likelyHeadDanger;
+    private final BitBoard food;
+    private final BitBoard hazards;
+
+    // our body as a ring buffer, head at ring[headPos]
+    private final int[] ring;
+    private final int ringMask;
+    private final int[] ownCount;
+    private int headPos;
+    private int length;
+    private int health;
+
+    // Zobrist keys: the root board, and our snake's changes since the root
+    private final Zobrist zobrist;
+    private final long rootKey;
+    private long hash;
+    // table entries are aged by the game's turn, so other games searching at the same time do not age ours
+    private final int generation;
+
+    private final int[] undoTail = new int[MAX_DEPTH];
+    private final long[] undoHash = new long[MAX_DEPTH];
+    private final int[] undoHealth = new int[MAX_DEPTH];
+    private final boolean[] undoAte = new boolean[MAX_DEPTH];
+    private final boolean[] undoGrew = new boolean[MAX_DEPTH];
+
+    // per worker bookkeeping
+    private Shared shared;
+    // subtracted from every score below the root move: head-to-head risk minus territory
+    private int rootOffset;
+    private final AreaEvaluator area;
+    private final PathFinder paths;
+    private final int[] savedThrough;
+    private long localNodes;
+    private int evaluations;
+    private int prunes;
+
+    private long nodes;
+    private int depthReached;
+
+    /**
+     * State shared by every worker searching one iteration.
+     */
+    private static class Shared {
+        private final long deadline;
+        private final AtomicInteger bestScore = new AtomicInteger(Integer.MIN_VALUE);
+        private final LongAdder nodes = new LongAdder();
+        private volatile boolean aborted;
+        private volatile boolean reachedHorizon;
+
+        private Shared(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    public MoveSearch(Board state) {
+        this(state, null);
+    }
+
+    /**
+     * @param replies how likely each opponent is to make each move, see
+     *                {@link GameSession#predictOpponents(Board)}, or null to
+     *                assume any move. Head-to-head risk is divided by
+     *                UNLIKELY_RISK_DIVISOR for replies less than
+     *                UNLIKELY_REPLY likely.
+     */
+    public MoveSearch(Board state, double[][] replies) {
+        this.width = state.getWidth();
+        this.height = state.getHeight();
+        this.geometry = state.getGeometry();
+        int cells = width * height;
+        BattleSnake you = state.getYou();
+        this.evaluation = Evaluation.forBoard(state);
+        this.hazardDamage = state.getHazardDamage();
+        this.growing = state.isConstrictor();
+
+        this.occupiedThrough = new int[cells];
+        this.headDanger = new BitBoard(width, height);
+        this.likelyHeadDanger = new BitBoard(width, height);
+        this.food = new BitBoard(width, height);
+        this.hazards = new BitBoard(width, height);
+        food.copyFrom(state.getFoodMask());
+        hazards.copyFrom(state.getHazards());
+
+        this.opponentHeads = new int[state.getOpponentCount() + 1];
+        for (int o = 0; o < state.getOpponentCount(); o++) {
+            BattleSnake opponent = state.getOpponent(o);
+            int head = opponent.getCell(0);
+            opponentHeads[o + 1] = head;
+            for (int i = 0; i < opponent.getLength(); i++) {
+                int cell = opponent.getCell(i);
+                if (cell != Geometry.OFF_BOARD) {
+                    int through = growing ? FOREVER : opponent.getLength() - 1 - i;
+                    occupiedThrough[cell] = Math.max(occupiedThrough[cell], through);
+                }
+            }
+            if (opponent.getLength() >= you.getLength() && head != Geometry.OFF_BOARD) {
+                for (int move = 0; move < 4; move++) {
+                    int next = geometry.neighbour(head, move);
+                    if (next == Geometry.OFF_BOARD) {
+                        continue;
+                    }
+                    headDanger.set(next);
+                    if (replies == null || replies[o][move] >= UNLIKELY_REPLY) {
+                        likelyHeadDanger.set(next);
+                    }
+                }
+            }
+        }
+
+        int capacity = Integer.highestOneBit(cells + MAX_DEPTH) << 1;
+        this.ring = new int[capacity];
+        this.ringMask = capacity - 1;
+        this.ownCount = new int[cells];
+        this.area = new AreaEvaluator(geometry);
+        this.paths = new PathFinder(geometry);
+        this.savedThrough = new int[capacity];
+        for (int i = 0; i < you.getLength(); i++) {
+            int cell = you.getCell(i);
+            ring[i] = cell;
+            ownCount[cell]++;
+        }
+        this.headPos = 0;
+        this.length = you.getLength();
+        this.health = you.getHealth();
+
+        this.zobrist = Zobrist.forSize(width, height);
+        this.rootKey = Zobrist.mix(zobrist.hash(state) + evaluation.key());
+        this.hash = 0;
+        this.generation = state.getTurn();
+    }
+
+    // Worker copy, read-only tables are shared and mutable state is cloned
+    private MoveSearch(MoveSearch other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.geometry = other.geometry;
+        this.evaluation = other.evaluation;
+        this.hazardDamage = other.hazardDamage;
+        this.growing = other.growing;
+        this.occupiedThrough = other.occupiedThrough.clone();
+        this.opponentHeads = other.opponentHeads.clone();
+        this.area = new AreaEvaluator(geometry);
+        this.paths = new PathFinder(geometry);
+        this.headDanger = other.headDanger;
+        this.likelyHeadDanger = other.likelyHeadDanger;
+        this.hazards = other.hazards;
+        this.food = new BitBoard(width, height);
+        this.food.copyFrom(other.food);
+        this.ring = other.ring.clone();
+        this.ringMask = other.ringMask;
+        this.ownCount = other.ownCount.clone();
+        this.savedThrough = new int[other.savedThrough.length];
+        this.headPos = other.headPos;
+        this.length = other.length;
+        this.health = other.health;
+        this.zobrist = other.zobrist;
+        this.rootKey = other.rootKey;
+        this.hash = other.hash;
+        this.generation = other.generation;
+        this.shared = other.shared;
+        this.rootOffset = other.rootOffset;
+    }
+
+    /**
+     * Searches deeper and deeper until the deadline.
+     *
+     * @param deadline  System.nanoTime() by which we must have an answer
+     * @param preferred move index tried first at the root, wins ties
+     * @return index into {@link #MOVES}
+     */
+    @Override
+    public int findMove(long deadline, int preferred) {
+        return findMove(deadline, preferred, MAX_DEPTH);
+    }
+
+    public int findMove(long deadline, int preferred, int maxDepth) {
+        this.nodes = 0;
+        this.depthReached = 0;
+
+        int bestMove = preferred;
+        int[] order = new int[4];
+        List<ForkJoinTask<Integer>> tasks = new ArrayList<>(4);
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            Shared iteration = new Shared(deadline);
+            // previous best first, so ties keep resolving the same way
+            tasks.clear();
+            for (int i = 0; i < 4; i++) {
+                order[i] = orderedMove(i, bestMove);
+                tasks.add(POOL.submit(rootTask(order[i], depth, iteration)));
+            }
+
+            int iterationMove = -1;
+            int iterationScore = Integer.MIN_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int score = tasks.get(i).join();
+                if (score > iterationScore) {
+                    iterationScore = score;
+                    iterationMove = order[i];
+                }
+            }
+            nodes += iteration.nodes.sum();
+            if (iteration.aborted) {
+                break;
+            }
+            bestMove = iterationMove;
+            depthReached = depth;
+            // every line ended before the horizon, deeper searches see nothing new
+            if (!iteration.reachedHorizon) {
+                break;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Our best reply after playing move, as left in the transposition table by
+     * the last {@link #findMove} call. Lets the next turn try it first.
+     *
+     * @return index into {@link #MOVES}, or TranspositionTable.NO_MOVE
+     */
+    @Override
+    public int plannedReply(int move) {
+        if (!play(move, 0)) {
+            return TranspositionTable.NO_MOVE;
+        }
+        long entry = TABLE.probe(rootKey ^ hash ^ zobrist.ply(1));
+        undo(0);
+        return entry == TranspositionTable.MISS ? TranspositionTable.NO_MOVE : TranspositionTable.move(entry);
+    }
+
+    @Override
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    private ForkJoinTask<Integer> rootTask(int move, int depth, Shared iteration) {
+        MoveSearch worker = new MoveSearch(this);
+        worker.shared = iteration;
+        if (!worker.play(move, 0)) {
+            return ForkJoinTask.adapt(() -> LOSS);
+        }
+        long start = System.nanoTime();
+        int head = worker.ring[worker.headPos];
+        int risk = 0;
+        if (headDanger.get(head)) {
+            int weight = evaluation.weight(Evaluation.HEAD_TO_HEAD);
+            risk = likelyHeadDanger.get(head) ? weight : weight / UNLIKELY_RISK_DIVISOR;
+        }
+        long riskDone = System.nanoTime();
+        int territory = 0;
+        if (evaluation.weight(Evaluation.AREA) != 0) {
+            int[] heads = worker.opponentHeads;
+            heads[0] = worker.ring[worker.headPos];
+            territory = worker.area.voronoi(heads, heads.length, 1, worker.occupiedThrough, worker.ownCount);
+            Metrics.EVALUATION_STAGE[Evaluation.AREA].recordNanos(System.nanoTime() - riskDone);
+        }
+        Metrics.EVALUATION_STAGE[Evaluation.HEAD_TO_HEAD].recordNanos(riskDone - start);
+        worker.rootOffset = risk - territory * evaluation.weight(Evaluation.AREA);
+        return new SubtreeTask(worker, 1, depth);
+    }
+
+    /**
+     * Searches below a worker's current position, forking one task per reply
+     * while enough depth remains to be worth the copy.
+     */
+    private static class SubtreeTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final MoveSearch worker;
+        private final int ply;
+        private final int depth;
+
+        private SubtreeTask(MoveSearch worker, int ply, int depth) {
+            this.worker = worker;
+            this.ply = ply;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Integer compute() {
+            int score;
+            if (depth - ply < SPLIT_DEPTH || ply > 1) {
+                score = worker.search(ply, depth);
+            } else {
+                score = LOSS + ply * 1000;
+                int bestMove = TranspositionTable.NO_MOVE;
+                SubtreeTask[] children = new SubtreeTask[4];
+                for (int move = 0; move < 4; move++) {
+                    if (worker.play(move, ply)) {
+                        children[move] = new SubtreeTask(new MoveSearch(worker), ply + 1, depth);
+                        worker.undo(ply);
+                        children[move].fork();
+                    }
+                }
+                for (int move = 0; move < 4; move++) {
+                    if (children[move] != null) {
+                        int childScore = children[move].join();
+                        if (childScore > score) {
+                            score = childScore;
+                            bestMove = move;
+                        }
+                    }
+                }
+                // children prune independently, so this is only good for move ordering
+                if (!worker.shared.aborted) {
+                    long key = worker.rootKey ^ worker.hash ^ worker.zobrist.ply(ply);
+                    TABLE.store(key, score, depth - ply, TranspositionTable.LOWER, bestMove, worker.generation);
+                }
+            }
+            worker.shared.nodes.add(worker.localNodes);
+            worker.localNodes = 0;
+            // the root penalty only depends on the first move, apply it where the score leaves the subtree
+            return ply == 1 && score > LOSS / 2 ? score - worker.rootOffset : score;
+        }
+    }
+
+    // The i-th move to try when first should go before the others in their usual order
+    static int orderedMove(int i, int first) {
+        if (first < 0 || first > 3) {
+            return i;
+        }
+        return i == 0 ? first : (i <= first ? i - 1 : i);
+    }
+
+    private int search(int ply, int depth) {
+        Shared iteration = shared;
+        if ((++localNodes & 1023) == 0 && System.nanoTime() > iteration.deadline) {
+            iteration.aborted = true;
+        }
+        if (iteration.aborted) {
+            return 0;
+        }
+        if (ply == depth) {
+            iteration.reachedHorizon = true;
+            int score = evaluate(ply);
+            publish(score);
+            return score;
+        }
+        int remaining = depth - ply;
+        // nothing below can beat a line another worker already found
+        if (upperBound(remaining) - rootOffset < iteration.bestScore.get()) {
+            iteration.reachedHorizon = true;
+            prunes++;
+            return LOSS + ply * 1000;
+        }
+
+        long key = rootKey ^ hash ^ zobrist.ply(ply);
+        long entry = TABLE.probe(key);
+        int hashMove = TranspositionTable.NO_MOVE;
+        if (entry != TranspositionTable.MISS) {
+            if (TranspositionTable.flag(entry) == TranspositionTable.EXACT && TranspositionTable.depth(entry) >= remaining) {
+                iteration.reachedHorizon = true;
+                return TranspositionTable.score(entry);
+            }
+            hashMove = TranspositionTable.move(entry);
+        }
+
+        int prunesBefore = prunes;
+        int best = LOSS + ply * 1000;
+        int bestMove = TranspositionTable.NO_MOVE;
+        for (int i = 0; i < 4; i++) {
+            int move = orderedMove(i, hashMove);
+            if (play(move, ply)) {
+                int score = search(ply + 1, depth);
+                undo(ply);
+                if (score > best) {
+                    best = score;
+                    bestMove = move;
+                }
+            }
+        }
+        if (!iteration.aborted) {
+            // a pruned subtree only proves a lower bound
+            int flag = prunes == prunesBefore ? TranspositionTable.EXACT : TranspositionTable.LOWER;
+            TABLE.store(key, best, remaining, flag, bestMove, generation);
+        }
+        return best;
+    }
+
+    // Any leaf is a lower bound on the root score of its first move
+    private void publish(int score) {
+        int rootScore = score - rootOffset;
+        AtomicInteger bestScore = shared.bestScore;
+        int current = bestScore.get();
+        while (rootScore > current && !bestScore.compareAndSet(current, rootScore)) {
+            current = bestScore.get();
+        }
+    }
+
+    // Highest evaluation any leaf below can reach in the given number of plies
+    private int upperBound(int remaining) {
+        return evaluation.upperBound(length, remaining);
+    }
+
+    // Advances our snake one turn, returns false (leaving nothing to undo) if it dies
+    private boolean play(int move, int ply) {
+        int head = ring[headPos];
+        int next = geometry.neighbour(head, move);
+        if (next == Geometry.OFF_BOARD) {
+            return false;
+        }
+        if (occupiedThrough[next] >= ply + 1) {
+            return false;
+        }
+
+        int tailSlot = (headPos + length - 1) & ringMask;
+        boolean ate = food.get(next);
+        boolean grew = ate || growing;
+        if (!grew) {
+            ownCount[ring[tailSlot]]--;
+        }
+        int nextHealth = grew ? 100 : health - 1 - (hazards.get(next) ? hazardDamage : 0);
+        if (ownCount[next] > 0 || nextHealth <= 0) {
+            if (!grew) {
+                ownCount[ring[tailSlot]]++;
+            }
+            return false;
+        }
+
+        undoTail[ply] = ring[tailSlot];
+        undoHealth[ply] = health;
+        undoAte[ply] = ate;
+        undoGrew[ply] = grew;
+        undoHash[ply] = hash;
+
+        hash ^= zobrist.head(head) ^ zobrist.head(next) ^ zobrist.body(next)
+                ^ zobrist.health(health) ^ zobrist.health(nextHealth);
+        if (ate) {
+            hash ^= zobrist.food(next);
+        }
+        if (grew) {
+            hash ^= zobrist.length(length) ^ zobrist.length(length + 1);
+        } else {
+            int newTail = ring[(tailSlot - 1) & ringMask];
+            hash ^= zobrist.body(ring[tailSlot]) ^ zobrist.tail(ring[tailSlot]) ^ zobrist.tail(newTail);
+        }
+
+        headPos = (headPos - 1) & ringMask;
+        ring[headPos] = next;
+        ownCount[next]++;
+        health = nextHealth;
+        if (ate) {
+            food.clear(next);
+        }
+        if (grew) {
+            length++;
+        }
+        return true;
+    }
+
+    private void undo(int ply) {
+        int head = ring[headPos];
+        ownCount[head]--;
+        headPos = (headPos + 1) & ringMask;
+        health = undoHealth[ply];
+        hash = undoHash[ply];
+        if (undoAte[ply]) {
+            food.set(head);
+        }
+        if (undoGrew[ply]) {
+            length--;
+        } else {
+            int tailSlot = (headPos + length - 1) & ringMask;
+            ring[tailSlot] = undoTail[ply];
+            ownCount[undoTail[ply]]++;
+        }
+    }
+
+    // Weighted sum of the evaluation's leaf stages, timing each stage on a sample of leaves
+    private int evaluate(int ply) {
+        int[] stages = evaluation.leafStages();
+        int[] weights = evaluation.leafWeights();
+        int score = 0;
+        if ((++evaluations & (EVALUATION_SAMPLE - 1)) != 0) {
+            for (int i = 0; i < stages.length; i++) {
+                score += weights[i] * stage(stages[i], ply);
+            }
+            return score;
+        }
+        for (int i = 0; i < stages.length; i++) {
+            long start = System.nanoTime();
+            score += weights[i] * stage(stages[i], ply);
+            Metrics.EVALUATION_STAGE[stages[i]].recordNanos(System.nanoTime() - start);
+        }
+        return score;
+    }
+
+    private int stage(int stage, int ply) {
+        int head = ring[headPos];
+        switch (stage) {
+            case Evaluation.HEALTH:
+                return health;
+            case Evaluation.ROOM:
+                int room = room(ply);
+                return room < length ? Math.min(0, room * 500 - TRAPPED) : 0;
+            case Evaluation.FOOD:
+                return -nearestFood(head, ply);
+            case Evaluation.LENGTH:
+                return length;
+            case Evaluation.TAIL:
+                return -manhattan(head, ring[(headPos + length - 1) & ringMask]);
+            case Evaluation.HAZARD:
+                return hazards.get(head) ? -1 : 0;
+            default:
+                return 0;
+        }
+    }
+
+    // Cells reachable from our head, counting our own body as a shrinking obstacle too
+    private int room(int ply) {
+        markBody(ply);
+        int room = area.floodFill(ring[headPos], length, ply, occupiedThrough, null);
+        unmarkBody();
+        return room;
+    }
+
+    // Path length to the closest food around every body, a whole board's worth if there is no way there
+    private int nearestFood(int from, int ply) {
+        markBody(ply);
+        int distance = paths.nearest(from, food, ply, occupiedThrough, null);
+        unmarkBody();
+        return distance == PathFinder.UNREACHABLE ? geometry.getCells() : distance;
+    }
+
+    // Writes our body into occupiedThrough until unmarkBody, each segment until its turn to move away
+    private void markBody(int ply) {
+        for (int i = 0; i < length; i++) {
+            int cell = ring[(headPos + i) & ringMask];
+            savedThrough[i] = occupiedThrough[cell];
+            occupiedThrough[cell] = Math.max(savedThrough[i], growing ? FOREVER : ply + length - 1 - i);
+        }
+    }
+
+    private void unmarkBody() {
+        for (int i = length - 1; i >= 0; i--) {
+            occupiedThrough[ring[(headPos + i) & ringMask]] = savedThrough[i];
+        }
+    }
+
+    private int manhattan(int a, int b) {
+        return geometry.distance(a, b);
+    }
+}
@@ -0,0 +1,237 @@
+package com.battlesnake.starter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Precomputed moves for positions that come up again and again, such as the
+ * first turns from the fixed spawn layouts, written by
+ * {@link OpeningBookBuilder} and memory-mapped read only at startup.
+ *
+ * Positions are keyed by a hash of the board in canonical orientation: the
+ * key is computed under every mirror and rotation that maps the board onto
+ * itself and the smallest one wins, so one entry answers all symmetric
+ * copies of a position. The book move is stored in that orientation and
+ * turned back on lookup.
+ *
+ * The file is a 16 byte header (magic, version, entry count) followed by the
+ * entries as sorted big-endian longs: the position key with its lowest two
+ * bits replaced by the move. A probe is a binary search, no entry is ever
+ * copied onto the heap.
+ */
+public final class OpeningBook {
+    static final int MAGIC = 0x534E4B42;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    private static final long MOVE_BITS = 3L;
+
+    // seeds keeping the parts of a position apart in the key
+    private static final long OPPONENT_SEED = 0x9E3779B97F4A7C15L;
+    private static final long FOOD_SEED = 0xC2B2AE3D27D4EB4FL;
+    private static final long HAZARD_SEED = 0x165667B19E3779F9L;
+
+    private static final Logger LOG = LoggerFactory.getLogger(OpeningBook.class);
+
+    public static final OpeningBook EMPTY = new OpeningBook(LongBuffer.allocate(0));
+
+    private final LongBuffer entries;
+
+    private OpeningBook(LongBuffer entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * The book named by the OPENING_BOOK system property, or an empty one if
+     * it is not set or cannot be read.
+     */
+    public static OpeningBook open() {
+        String path = System.getProperty("OPENING_BOOK");
+        if (path == null) {
+            return EMPTY;
+        }
+        try {
+            OpeningBook book = load(new File(path));
+            LOG.info("Opening book {} holds {} positions", path, book.size());
+            return book;
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Not using opening book {}", path, e);
+            return EMPTY;
+        }
+    }
+
+    public static OpeningBook load(File file) throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "r"); FileChannel channel = in.getChannel()) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.remaining() < HEADER_BYTES || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+                throw new IllegalArgumentException(file + " is not an opening book");
+            }
+            int count = mapped.getInt(8);
+            if ((long) count * Long.BYTES != mapped.remaining() - HEADER_BYTES) {
+                throw new IllegalArgumentException(file + " is truncated");
+            }
+            mapped.position(HEADER_BYTES);
+            // the mapping stays valid after the channel is closed
+            return new OpeningBook(mapped.slice().asLongBuffer());
+        }
+    }
+
+    /**
+     * Writes a book file.
+     *
+     * @param keys  position keys from {@link #key(Board)}, in any order
+     * @param moves the move for each key, an index into {@link MoveSearch#MOVES}
+     */
+    public static void write(File file, long[] keys, int[] moves, int count) throws IOException {
+        long[] entries = new long[count];
+        for (int i = 0; i < count; i++) {
+            entries[i] = (keys[i] & ~MOVE_BITS) | moves[i];
+        }
+        Arrays.sort(entries);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeInt(0);
+            for (long entry : entries) {
+                out.writeLong(entry);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.limit();
+    }
+
+    /**
+     * The book move for our snake on this board.
+     *
+     * @return index into {@link MoveSearch#MOVES}, or TranspositionTable.NO_MOVE
+     */
+    public int probe(Board board) {
+        if (size() == 0) {
+            return TranspositionTable.NO_MOVE;
+        }
+        int symmetry = canonicalSymmetry(board);
+        long key = key(board, symmetry) & ~MOVE_BITS;
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long found = entries.get(middle) & ~MOVE_BITS;
+            if (found < key) {
+                low = middle + 1;
+            } else if (found > key) {
+                high = middle - 1;
+            } else {
+                return untransformMove(symmetry, (int) (entries.get(middle) & MOVE_BITS));
+            }
+        }
+        return TranspositionTable.NO_MOVE;
+    }
+
+    /**
+     * Key of the board in canonical orientation, see {@link #canonicalMove(Board, int)}
+     * for the matching move.
+     */
+    public static long key(Board board) {
+        return key(board, canonicalSymmetry(board));
+    }
+
+    // Turns a move on the board as given into the canonical orientation its key uses
+    public static int canonicalMove(Board board, int move) {
+        return transformMove(canonicalSymmetry(board), move);
+    }
+
+    // Symmetry whose key is smallest, bit 0 mirrors x, bit 1 mirrors y, bit 2 swaps the axes
+    static int canonicalSymmetry(Board board) {
+        int symmetries = board.getWidth() == board.getHeight() ? 8 : 4;
+        int best = 0;
+        long bestKey = key(board, 0);
+        for (int symmetry = 1; symmetry < symmetries; symmetry++) {
+            long key = key(board, symmetry);
+            if (key < bestKey) {
+                bestKey = key;
+                best = symmetry;
+            }
+        }
+        return best;
+    }
+
+    static long key(Board board, int symmetry) {
+        long key = Zobrist.mix(board.getRuleset() == null ? 0 : board.getRuleset().hashCode());
+        key = Zobrist.mix(key + board.getWidth() * 31L + board.getHeight());
+        key = Zobrist.mix(key + snake(board, board.getYou(), symmetry));
+        // opponents and cells are summed so their order does not matter
+        long opponents = 0;
+        for (int o = 0; o < board.getOpponentCount(); o++) {
+            opponents += Zobrist.mix(OPPONENT_SEED + snake(board, board.getOpponent(o), symmetry));
+        }
+        long cells = 0;
+        for (int i = 0; i < board.getFoodCount(); i++) {
+            int food = board.getFood(i);
+            cells += Zobrist.mix(FOOD_SEED + transform(board, symmetry, GameState.unpackX(food), GameState.unpackY(food)));
+        }
+        BitBoard hazards = board.getHazards();
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                if (hazards.get(x, y)) {
+                    cells += Zobrist.mix(HAZARD_SEED + transform(board, symmetry, x, y));
+                }
+            }
+        }
+        return Zobrist.mix(key + opponents * 3 + cells);
+    }
+
+    // Head first, so the order of segments (and stacked tails) is part of the key
+    private static long snake(Board board, BattleSnake snake, int symmetry) {
+        long key = snake.getHealth();
+        for (int i = 0; i < snake.getLength(); i++) {
+            int segment = snake.getSegment(i);
+            key = Zobrist.mix(key + transform(board, symmetry, GameState.unpackX(segment), GameState.unpackY(segment)));
+        }
+        return key;
+    }
+
+    // Packed coordinate of (x, y) under a symmetry
+    private static int transform(Board board, int symmetry, int x, int y) {
+        int tx = (symmetry & 1) != 0 ? board.getWidth() - 1 - x : x;
+        int ty = (symmetry & 2) != 0 ? board.getHeight() - 1 - y : y;
+        return (symmetry & 4) != 0 ? GameState.pack(ty, tx) : GameState.pack(tx, ty);
+    }
+
+    static int transformMove(int symmetry, int move) {
+        int dx = (symmetry & 1) != 0 ? -MoveSearch.DX[move] : MoveSearch.DX[move];
+        int dy = (symmetry & 2) != 0 ? -MoveSearch.DY[move] : MoveSearch.DY[move];
+        if ((symmetry & 4) != 0) {
+            int swap = dx;
+            dx = dy;
+            dy = swap;
+        }
+        for (int m = 0; m < 4; m++) {
+            if (MoveSearch.DX[m] == dx && MoveSearch.DY[m] == dy) {
+                return m;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    static int untransformMove(int symmetry, int canonical) {
+        for (int m = 0; m < 4; m++) {
+            if (transformMove(symmetry, m) == canonical) {
+                return m;
+            }
+        }
+        throw new IllegalStateException();
+    }
+}
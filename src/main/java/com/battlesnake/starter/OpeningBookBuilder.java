@@ -0,0 +1,299 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Offline generator for the {@link OpeningBook}: collects positions that
+ * repeat, searches each one for much longer than a live turn allows, and
+ * writes the answers to a book file.
+ *
+ * Usage: OpeningBookBuilder [--snakes K] [--plies N] [--millis MS]
+ * [--min-repeats R] [--threads N] [--replays FILE_OR_DIR]... OUTPUT
+ *
+ * Openings are every official spawn layout of K snakes on an 11x11 standard
+ * board (fixed spawn points, one piece of food next to each snake and one in
+ * the centre), followed N turns into every line where all snakes survive.
+ * Endgames are the 1v1 positions found in {@link ReplayRecorder} files that
+ * occur at least R times. Symmetric copies count as one position, and each
+ * is searched from every snake's point of view.
+ */
+public class OpeningBookBuilder {
+    static final int SIZE = 11;
+    static final int START_LENGTH = 3;
+    static final int[][] SPAWNS = {{1, 1}, {1, 9}, {9, 1}, {9, 9}, {1, 5}, {5, 1}, {5, 9}, {9, 5}};
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    // canonical key to one board with that key, in the order found
+    private final Map<Long, Board> positions = new LinkedHashMap<>();
+    private final GameState view = new GameState();
+
+    public static void main(String[] args) throws Exception {
+        int snakes = 2;
+        int plies = 1;
+        int millis = 1000;
+        int minRepeats = 2;
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<File> replays = new ArrayList<>();
+        File output = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--snakes": snakes = Integer.parseInt(args[++i]); break;
+                case "--plies": plies = Integer.parseInt(args[++i]); break;
+                case "--millis": millis = Integer.parseInt(args[++i]); break;
+                case "--min-repeats": minRepeats = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--replays": ReplayRunner.collect(new File(args[++i]), replays); break;
+                default: output = new File(args[i]); break;
+            }
+        }
+        if (output == null) {
+            System.err.println("Usage: OpeningBookBuilder [--snakes K] [--plies N] [--millis MS] [--min-repeats R]"
+                    + " [--threads N] [--replays FILE_OR_DIR]... OUTPUT");
+            System.exit(2);
+        }
+
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        builder.addOpenings(snakes, plies);
+        int openings = builder.size();
+        builder.addEndgames(replays, minRepeats);
+        System.out.printf("%d opening and %d endgame positions, searching %d ms each%n",
+                openings, builder.size() - openings, millis);
+        int written = builder.write(output, millis, threads);
+        System.out.printf("wrote %d positions to %s%n", written, output);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Adds every spawn layout of the given number of snakes, and the positions
+     * up to plies turns later in which every snake is still alive.
+     */
+    public void addOpenings(int snakes, int plies) {
+        int[] chosen = new int[snakes];
+        chooseSpawns(chosen, 0, 0, plies);
+    }
+
+    private void chooseSpawns(int[] chosen, int count, int from, int plies) {
+        if (count == chosen.length) {
+            int[][] foodChoices = new int[chosen.length][];
+            for (int s = 0; s < chosen.length; s++) {
+                foodChoices[s] = startFood(SPAWNS[chosen[s]][0], SPAWNS[chosen[s]][1]);
+            }
+            chooseFood(chosen, foodChoices, new int[chosen.length], 0, plies);
+            return;
+        }
+        for (int spawn = from; spawn < SPAWNS.length; spawn++) {
+            chosen[count] = spawn;
+            chooseSpawns(chosen, count + 1, spawn + 1, plies);
+        }
+    }
+
+    private void chooseFood(int[] spawns, int[][] choices, int[] food, int snake, int plies) {
+        if (snake == spawns.length) {
+            start(spawns, food);
+            Board board = new Board(view);
+            Simulator simulator = new Simulator(SIZE, SIZE);
+            simulator.load(board);
+            expand(board, simulator, plies);
+            return;
+        }
+        for (int choice : choices[snake]) {
+            food[snake] = choice;
+            chooseFood(spawns, choices, food, snake + 1, plies);
+        }
+    }
+
+    // Cells the standard ruleset may put a snake's first food on: diagonal to the head, away from the centre, not a corner
+    static int[] startFood(int x, int y) {
+        int centre = SIZE / 2;
+        int[] cells = new int[4];
+        int count = 0;
+        for (int dx = -1; dx <= 1; dx += 2) {
+            for (int dy = -1; dy <= 1; dy += 2) {
+                int fx = x + dx;
+                int fy = y + dy;
+                boolean away = (fx < x && x < centre) || (centre < x && x < fx) || (fy < y && y < centre) || (centre < y && y < fy);
+                boolean corner = (fx == 0 || fx == SIZE - 1) && (fy == 0 || fy == SIZE - 1);
+                if (away && !corner) {
+                    cells[count++] = fy * SIZE + fx;
+                }
+            }
+        }
+        return Arrays.copyOf(cells, count);
+    }
+
+    private void start(int[] spawns, int[] food) {
+        view.reset();
+        for (int s = 0; s < spawns.length; s++) {
+            int slot = view.addSnake();
+            view.snakeIds[slot] = "snake-" + s;
+            view.health[slot] = 100;
+            view.length[slot] = START_LENGTH;
+            view.bodies[slot] = GameState.grow(view.bodies[slot], START_LENGTH);
+            for (int i = 0; i < START_LENGTH; i++) {
+                view.bodies[slot][i] = GameState.pack(SPAWNS[spawns[s]][0], SPAWNS[spawns[s]][1]);
+            }
+            addFood(food[s]);
+        }
+        addFood((SIZE / 2) * SIZE + SIZE / 2);
+        view.youId = "snake-0";
+        view.resolveYou();
+    }
+
+    private void addFood(int cell) {
+        view.food = GameState.grow(view.food, view.foodCount);
+        view.food[view.foodCount++] = GameState.pack(cell % SIZE, cell / SIZE);
+    }
+
+    // Adds the simulator's position from every snake's side, then every line one turn deeper
+    private void expand(Board board, Simulator simulator, int plies) {
+        for (int s = 0; s < board.getSnakeCount(); s++) {
+            view.youId = board.getSnake(s).getId();
+            view.resolveYou();
+            add(new Board(view));
+        }
+        if (plies == 0) {
+            return;
+        }
+        int snakes = simulator.getSnakeCount();
+        int[] moves = new int[snakes];
+        for (int joint = 0; joint < 1 << (2 * snakes); joint++) {
+            for (int s = 0; s < snakes; s++) {
+                moves[s] = (joint >> (2 * s)) & 3;
+            }
+            simulator.step(moves);
+            if (simulator.getAliveCount() == snakes) {
+                capture(simulator);
+                expand(new Board(view), simulator, plies - 1);
+            }
+            simulator.undo();
+        }
+    }
+
+    // Rewrites the view as the simulator's position, snake s keeps the id snake-s
+    private void capture(Simulator simulator) {
+        view.reset();
+        for (int s = 0; s < simulator.getSnakeCount(); s++) {
+            int slot = view.addSnake();
+            int length = simulator.getLength(s);
+            view.snakeIds[slot] = "snake-" + s;
+            view.health[slot] = simulator.getHealth(s);
+            view.length[slot] = length;
+            while (view.bodies[slot].length < length) {
+                view.bodies[slot] = GameState.grow(view.bodies[slot], view.bodies[slot].length);
+            }
+            for (int i = 0; i < length; i++) {
+                int cell = simulator.getBody(s, i);
+                view.bodies[slot][i] = GameState.pack(cell % SIZE, cell / SIZE);
+            }
+        }
+        for (int cell = 0; cell < SIZE * SIZE; cell++) {
+            if (simulator.isFood(cell)) {
+                addFood(cell);
+            }
+        }
+        view.youId = "snake-0";
+        view.resolveYou();
+    }
+
+    /**
+     * Adds the 1v1 positions of recorded games that were seen at least
+     * minRepeats times.
+     */
+    public void addEndgames(List<File> files, int minRepeats) throws IOException {
+        Map<Long, Integer> seen = new HashMap<>();
+        Map<Long, Board> boards = new HashMap<>();
+        for (File file : files) {
+            try (InputStream in = new GZIPInputStream(new FileInputStream(file), 8192);
+                 MappingIterator<JsonNode> requests = JSON_MAPPER.readerFor(JsonNode.class).readValues(in)) {
+                while (requests.hasNext()) {
+                    JsonNode request = requests.next();
+                    if (!request.path("route").asText().equals("/move")) {
+                        continue;
+                    }
+                    Board board = new Board(request.path("body"));
+                    if (board.getSnakeCount() != 2) {
+                        continue;
+                    }
+                    long key = OpeningBook.key(board);
+                    boards.putIfAbsent(key, board);
+                    seen.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+        for (Map.Entry<Long, Integer> entry : seen.entrySet()) {
+            if (entry.getValue() >= minRepeats) {
+                positions.putIfAbsent(entry.getKey(), boards.get(entry.getKey()));
+            }
+        }
+    }
+
+    public void add(Board board) {
+        positions.putIfAbsent(OpeningBook.key(board), board);
+    }
+
+    /**
+     * Searches every position for the given time and writes the book.
+     *
+     * @return the number of positions written, those with a move that does not lose at once
+     */
+    public int write(File output, int millis, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Integer>> searches = new ArrayList<>();
+            for (Board board : positions.values()) {
+                searches.add(pool.submit(() -> search(board, millis)));
+            }
+            long[] keys = new long[searches.size()];
+            int[] moves = new int[searches.size()];
+            int count = 0;
+            int i = 0;
+            for (Board board : positions.values()) {
+                int move = searches.get(i++).get();
+                if (move != TranspositionTable.NO_MOVE) {
+                    keys[count] = OpeningBook.key(board);
+                    moves[count++] = OpeningBook.canonicalMove(board, move);
+                }
+            }
+            OpeningBook.write(output, keys, moves, count);
+            return count;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Deep search of one position, NO_MOVE when every move runs into a wall or body
+    static int search(Board board, int millis) {
+        boolean safe = false;
+        for (int move = 0; move < 4; move++) {
+            safe |= board.isSafe(board.getYou(), move);
+        }
+        if (!safe) {
+            return TranspositionTable.NO_MOVE;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        Search search = board.getOpponentCount() > 0 ? new ParanoidSearch(board, null) : new MoveSearch(board);
+        return search.findMove(deadline, Simulator.UP);
+    }
+}
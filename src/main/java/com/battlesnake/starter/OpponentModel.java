@@ -0,0 +1,186 @@
+package com.battlesnake.starter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Learns, over the turns of one game, how each opponent tends to pick its
+ * moves, and predicts a probability for each of its next moves.
+ *
+ * A move is described by a few cheap yes/no features (keeps going straight,
+ * gets closer to food, gets closer to the centre). For every snake and
+ * feature the model counts, over the turns where some but not all legal moves
+ * had the feature, how often the snake picked one that did. Each feature then
+ * spreads that rate over the moves with it and the rest over the moves
+ * without it; a move's probability is the product of what every feature
+ * gives it, normalised over the legal moves. Until a snake has been watched
+ * for MIN_OBSERVATIONS turns every legal move is equally likely.
+ *
+ * Not thread safe, a {@link GameSession} owns one and only touches it while
+ * holding its own lock. Predictions are copied out before the search uses
+ * them.
+ */
+public class OpponentModel {
+    static final int STRAIGHT = 0;
+    static final int TOWARD_FOOD = 1;
+    static final int TOWARD_CENTER = 2;
+    static final int FEATURES = 3;
+    // turns to watch a snake before trusting its profile over a uniform guess
+    static final int MIN_OBSERVATIONS = 5;
+
+    private final HashMap<String, Profile> profiles = new HashMap<>();
+    private final int[] features = new int[4];
+    private final boolean[] legal = new boolean[4];
+
+    /**
+     * Counts of one snake's choices so far.
+     */
+    static class Profile {
+        // turns the feature told the legal moves apart, and how often the snake picked one with it
+        final int[] available = new int[FEATURES];
+        final int[] chosen = new int[FEATURES];
+        int observed;
+
+        // Smoothed chance of picking a move with the feature when there is a choice
+        double rate(int feature) {
+            return (chosen[feature] + 1.0) / (available[feature] + 2.0);
+        }
+    }
+
+    public int getObservations(String id) {
+        Profile profile = profiles.get(id);
+        return profile == null ? 0 : profile.observed;
+    }
+
+    /**
+     * Records the move a snake made from its position on the board.
+     */
+    public void observe(String id, Board board, BattleSnake snake, int move) {
+        int head = snake.getCell(0);
+        int neck = snake.getLength() > 1 ? snake.getCell(1) : head;
+        int legalCount = 0;
+        for (int m = 0; m < 4; m++) {
+            legal[m] = board.isSafe(snake, m);
+            if (legal[m]) {
+                features[m] = features(board.getGeometry(), head, neck, m, board.getFoodMask());
+                legalCount++;
+            }
+        }
+        // with one way out (or none) the choice says nothing about the snake
+        if (legalCount < 2 || !legal[move]) {
+            return;
+        }
+        Profile profile = profiles.computeIfAbsent(id, key -> new Profile());
+        profile.observed++;
+        for (int f = 0; f < FEATURES; f++) {
+            int having = 0;
+            for (int m = 0; m < 4; m++) {
+                if (legal[m] && (features[m] & (1 << f)) != 0) {
+                    having++;
+                }
+            }
+            // only moves where the feature told the options apart say anything about it
+            if (having == 0 || having == legalCount) {
+                continue;
+            }
+            profile.available[f]++;
+            if ((features[move] & (1 << f)) != 0) {
+                profile.chosen[f]++;
+            }
+        }
+    }
+
+    /**
+     * Fills probabilities[0..3] with how likely the snake is to make each move,
+     * indexed like {@link MoveSearch#MOVES}. Moves into walls or bodies get 0,
+     * unless there is no legal move at all, in which case all four are equal.
+     */
+    public void predict(Board board, BattleSnake snake, double[] probabilities) {
+        int head = snake.getCell(0);
+        int neck = snake.getLength() > 1 ? snake.getCell(1) : head;
+        Profile profile = snake.getId() == null ? null : profiles.get(snake.getId());
+        if (profile != null && profile.observed < MIN_OBSERVATIONS) {
+            profile = null;
+        }
+        int legalCount = 0;
+        for (int m = 0; m < 4; m++) {
+            legal[m] = board.isSafe(snake, m);
+            if (legal[m]) {
+                legalCount++;
+                features[m] = profile == null ? 0 : features(board.getGeometry(), head, neck, m, board.getFoodMask());
+            }
+        }
+        if (legalCount == 0) {
+            Arrays.fill(probabilities, 0.25);
+            return;
+        }
+
+        Arrays.fill(probabilities, 0);
+        for (int m = 0; m < 4; m++) {
+            if (legal[m]) {
+                probabilities[m] = 1;
+            }
+        }
+        for (int f = 0; profile != null && f < FEATURES; f++) {
+            int having = 0;
+            for (int m = 0; m < 4; m++) {
+                if (legal[m] && (features[m] & (1 << f)) != 0) {
+                    having++;
+                }
+            }
+            if (having == 0 || having == legalCount) {
+                continue;
+            }
+            double rate = profile.rate(f);
+            for (int m = 0; m < 4; m++) {
+                if (legal[m]) {
+                    probabilities[m] *= (features[m] & (1 << f)) != 0 ? rate / having : (1 - rate) / (legalCount - having);
+                }
+            }
+        }
+        double total = 0;
+        for (int m = 0; m < 4; m++) {
+            total += probabilities[m];
+        }
+        for (int m = 0; m < 4; m++) {
+            probabilities[m] /= total;
+        }
+    }
+
+    // Bit set of the features moving from head in direction move has, distances measured like Geometry
+    static int features(Geometry geometry, int head, int neck, int move, BitBoard food) {
+        int next = geometry.neighbour(head, move);
+        int present = 0;
+        if (neck != head && geometry.neighbour(neck, move) == head) {
+            present |= 1 << STRAIGHT;
+        }
+        if (nearestFood(geometry, next, food) < nearestFood(geometry, head, food)) {
+            present |= 1 << TOWARD_FOOD;
+        }
+        if (centreDistance(geometry, next) < centreDistance(geometry, head)) {
+            present |= 1 << TOWARD_CENTER;
+        }
+        return present;
+    }
+
+    private static int nearestFood(Geometry geometry, int from, BitBoard food) {
+        int nearest = Integer.MAX_VALUE;
+        for (int cell = 0; cell < geometry.getCells(); cell++) {
+            if (food.get(cell)) {
+                nearest = Math.min(nearest, geometry.distance(from, cell));
+            }
+        }
+        return nearest;
+    }
+
+    // Doubled so the centre of an even board is a whole number, the short way round on wrapped boards
+    private static int centreDistance(Geometry geometry, int cell) {
+        int dx = Math.abs(2 * geometry.x(cell) - (geometry.getWidth() - 1));
+        int dy = Math.abs(2 * geometry.y(cell) - (geometry.getHeight() - 1));
+        if (geometry.isWrapped()) {
+            dx = Math.min(dx, 2 * geometry.getWidth() - dx);
+            dy = Math.min(dy, 2 * geometry.getHeight() - dy);
+        }
+        return dx + dy;
+    }
+}
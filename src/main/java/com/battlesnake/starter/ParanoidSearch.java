@@ -0,0 +1,395 @@
+package com.battlesnake.starter;
+
+import java.util.Arrays;
+
+/**
+ * Adversarial search for games with opponents, run on the {@link Simulator}.
+ *
+ * Paranoid: every opponent is assumed to be playing against us. Simultaneous
+ * moves are handled by letting us commit first and the opponents answer one
+ * after another knowing our move, so each turn is one max layer followed by
+ * one min layer per opponent, and the turn is only applied once every snake
+ * has a move. Because all opponents minimise the same score, alpha-beta
+ * cutoffs work across their layers as well, so a turn costs far less than the
+ * 4^N joint moves.
+ *
+ * Only the MAX_ADVERSARIES opponents whose heads are nearest ours (and within
+ * ADVERSARY_DISTANCE) branch at all; the rest play one predicted move per
+ * turn. Opponent replies the {@link OpponentModel} rates below
+ * MoveSearch.UNLIKELY_REPLY are not searched at the root.
+ *
+ * Move ordering: the previous iteration's principal variation, then two
+ * killer moves per ply, then history scores. Single threaded and not thread
+ * safe, one instance per request.
+ */
+public class ParanoidSearch implements Search {
+    static final int WIN = 1_000_000;
+    static final int LOSS = -1_000_000;
+    static final int MAX_PLY = 64;
+    static final int ADVERSARY_DISTANCE = Integer.getInteger("ADVERSARY_DISTANCE", 8);
+    static final int MAX_ADVERSARIES = Integer.getInteger("MAX_ADVERSARIES", 3);
+
+    static final int TERRITORY_WEIGHT = 10;
+    static final int LENGTH_WEIGHT = 40;
+    static final int OPPONENT_ALIVE_PENALTY = 500;
+
+    private final Simulator simulator;
+    private final AreaEvaluator area;
+    private final Geometry geometry;
+    private final int snakeCount;
+    private final double[][] replies;
+
+    // opponents that branch, nearest first, and everyone else
+    private final int[] adversaries;
+    private final int adversaryCount;
+    private final boolean[] adversary;
+
+    private final int[] moves;
+    private final int[] heads;
+    // principal variation of our moves, pv[ply][ply..pvLength[ply])
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[] lastPv = new int[MAX_PLY + 1];
+    private int lastPvLength;
+    // per ply and layer, the line below the reply that set the minimum, laid out like pv[ply + 1]
+    private final int[][][] replyPv;
+    private final int[][] replyPvLength;
+    // two most recent cutoff moves of ours per ply, NO_MOVE until set
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // per snake, per cell and move, deeper cutoffs count more
+    private final int[][] history;
+    // ordering scratch per ply and layer (0 is us, i + 1 is adversary i)
+    private final int[][][] order;
+    private final int[][][] orderScore;
+
+    private long deadline;
+    private boolean aborted;
+    private long nodes;
+    private int depthReached;
+
+    public ParanoidSearch(Board state, double[][] replies) {
+        this.geometry = state.getGeometry();
+        this.simulator = new Simulator(state.getWidth(), state.getHeight());
+        simulator.load(state);
+        this.area = new AreaEvaluator(geometry);
+        this.snakeCount = simulator.getSnakeCount();
+        this.replies = replies;
+        this.moves = new int[snakeCount];
+        this.heads = new int[snakeCount];
+        this.history = new int[snakeCount][geometry.getCells() * 4];
+        for (int[] ply : killers) {
+            Arrays.fill(ply, TranspositionTable.NO_MOVE);
+        }
+
+        // nearest opponents first
+        int[] candidates = new int[snakeCount - 1];
+        int[] distance = new int[snakeCount];
+        int count = 0;
+        int ourHead = simulator.getHead(0);
+        for (int s = 1; s < snakeCount; s++) {
+            int head = simulator.getHead(s);
+            distance[s] = geometry.distance(head, ourHead);
+            if (distance[s] <= ADVERSARY_DISTANCE) {
+                int i = count++;
+                while (i > 0 && distance[candidates[i - 1]] > distance[s]) {
+                    candidates[i] = candidates[i - 1];
+                    i--;
+                }
+                candidates[i] = s;
+            }
+        }
+        this.adversaryCount = Math.min(count, MAX_ADVERSARIES);
+        this.adversaries = new int[adversaryCount];
+        this.adversary = new boolean[snakeCount];
+        for (int i = 0; i < adversaryCount; i++) {
+            adversaries[i] = candidates[i];
+            adversary[candidates[i]] = true;
+        }
+        this.order = new int[MAX_PLY + 1][adversaryCount + 1][4];
+        this.orderScore = new int[MAX_PLY + 1][adversaryCount + 1][4];
+        this.replyPv = new int[MAX_PLY + 1][adversaryCount + 1][MAX_PLY + 1];
+        this.replyPvLength = new int[MAX_PLY + 1][adversaryCount + 1];
+    }
+
+    @Override
+    public int findMove(long deadline, int preferred) {
+        return findMove(deadline, preferred, MAX_PLY);
+    }
+
+    // Fixed depth variant, mostly so tests do not depend on timing
+    public int findMove(long deadline, int preferred, int maxDepth) {
+        this.deadline = deadline;
+        this.aborted = false;
+        this.nodes = 0;
+        this.depthReached = 0;
+        lastPv[0] = preferred;
+        lastPvLength = 1;
+
+        int bestMove = preferred;
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_PLY); depth++) {
+            int score = max(depth, 0, LOSS - 1, WIN + 1, true);
+            if (aborted) {
+                break;
+            }
+            if (pvLength[0] > 0) {
+                bestMove = pv[0][0];
+                lastPvLength = pvLength[0];
+                System.arraycopy(pv[0], 0, lastPv, 0, lastPvLength);
+            }
+            depthReached = depth;
+            // the outcome is decided within the horizon, deeper adds nothing
+            if (score <= LOSS + MAX_PLY || score >= WIN - MAX_PLY) {
+                break;
+            }
+        }
+        return bestMove;
+    }
+
+    @Override
+    public int plannedReply(int move) {
+        return lastPvLength > 1 && lastPv[0] == move ? lastPv[1] : TranspositionTable.NO_MOVE;
+    }
+
+    @Override
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    private boolean timeUp() {
+        if ((++nodes & 1023) == 0 && System.nanoTime() >= deadline) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    // Our layer, followed by one layer per adversary and then the turn itself
+    private int max(int depth, int ply, int alpha, int beta, boolean onPv) {
+        pvLength[ply] = 0;
+        if (timeUp()) {
+            return 0;
+        }
+        if (!simulator.isAlive(0)) {
+            return LOSS + ply;
+        }
+        if (snakeCount > 1 && simulator.getAliveCount() == 1) {
+            return WIN - ply;
+        }
+        if (depth == 0) {
+            return evaluate();
+        }
+
+        int[] ordered = order[ply][0];
+        int count = orderOurMoves(ply, onPv, ordered);
+        if (count == 0) {
+            // every move is fatal, let the simulator play one out so a trade still counts
+            ordered[0] = Simulator.UP;
+            count = 1;
+        }
+        int best = LOSS - 1;
+        for (int i = 0; i < count; i++) {
+            int move = ordered[i];
+            moves[0] = move;
+            int score = min(0, depth, ply, alpha, beta);
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                pv[ply][ply] = move;
+                System.arraycopy(replyPv[ply][0], ply + 1, pv[ply], ply + 1, replyPvLength[ply][0]);
+                pvLength[ply] = replyPvLength[ply][0] + 1;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+            if (alpha >= beta) {
+                cutoff(0, ply, move, depth);
+                break;
+            }
+        }
+        return best;
+    }
+
+    private int min(int layer, int depth, int ply, int alpha, int beta) {
+        if (layer == adversaryCount) {
+            for (int s = 1; s < snakeCount; s++) {
+                if (!adversary[s] && simulator.isAlive(s)) {
+                    moves[s] = passiveMove(s, ply);
+                }
+            }
+            simulator.step(moves);
+            int score = max(depth - 1, ply + 1, alpha, beta, false);
+            simulator.undo();
+            System.arraycopy(pv[ply + 1], ply + 1, replyPv[ply][layer], ply + 1, pvLength[ply + 1]);
+            replyPvLength[ply][layer] = pvLength[ply + 1];
+            return score;
+        }
+        int snake = adversaries[layer];
+        if (!simulator.isAlive(snake)) {
+            int score = min(layer + 1, depth, ply, alpha, beta);
+            keepReplyPv(ply, layer);
+            return score;
+        }
+
+        int[] ordered = order[ply][layer + 1];
+        int count = orderReplies(snake, layer, ply, ordered);
+        if (count == 0) {
+            // it dies whatever it does
+            moves[snake] = Simulator.UP;
+            int score = min(layer + 1, depth, ply, alpha, beta);
+            keepReplyPv(ply, layer);
+            return score;
+        }
+        int best = WIN + 1;
+        replyPvLength[ply][layer] = 0;
+        for (int i = 0; i < count; i++) {
+            moves[snake] = ordered[i];
+            int score = min(layer + 1, depth, ply, alpha, beta);
+            if (aborted) {
+                return 0;
+            }
+            // the line below the reply that sets the minimum, not whichever reply was searched last
+            if (score < best) {
+                best = score;
+                keepReplyPv(ply, layer);
+            }
+            if (best < beta) {
+                beta = best;
+            }
+            if (alpha >= beta) {
+                cutoff(snake, ply, ordered[i], depth);
+                break;
+            }
+        }
+        return best;
+    }
+
+    // Takes the line found by the next layer down as this layer's
+    private void keepReplyPv(int ply, int layer) {
+        System.arraycopy(replyPv[ply][layer + 1], ply + 1, replyPv[ply][layer], ply + 1, replyPvLength[ply][layer + 1]);
+        replyPvLength[ply][layer] = replyPvLength[ply][layer + 1];
+    }
+
+    private void cutoff(int snake, int ply, int move, int depth) {
+        history[snake][simulator.getHead(snake) * 4 + move] += depth * depth;
+        if (snake == 0 && killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+    }
+
+    // Safe moves, best first: principal variation, killers, then history
+    private int orderOurMoves(int ply, boolean onPv, int[] ordered) {
+        int[] scores = orderScore[ply][0];
+        int head = simulator.getHead(0);
+        int count = 0;
+        for (int move = 0; move < 4; move++) {
+            if (!simulator.isSafe(0, move)) {
+                continue;
+            }
+            int score = history[0][head * 4 + move];
+            if (onPv && ply < lastPvLength && lastPv[ply] == move) {
+                score = Integer.MAX_VALUE;
+            } else if (killers[ply][0] != TranspositionTable.NO_MOVE && killers[ply][0] == move) {
+                score = Integer.MAX_VALUE - 2;
+            } else if (killers[ply][1] != TranspositionTable.NO_MOVE && killers[ply][1] == move) {
+                score = Integer.MAX_VALUE - 3;
+            }
+            count = insert(ordered, scores, count, move, score);
+        }
+        return count;
+    }
+
+    // Safe replies of an adversary, most likely or most often refuting first
+    private int orderReplies(int snake, int layer, int ply, int[] ordered) {
+        int[] scores = orderScore[ply][layer + 1];
+        int head = simulator.getHead(snake);
+        int count = 0;
+        for (int move = 0; move < 4; move++) {
+            if (!simulator.isSafe(snake, move)) {
+                continue;
+            }
+            int score = history[snake][head * 4 + move];
+            if (ply == 0 && replies != null) {
+                double p = replies[snake - 1][move];
+                if (p < MoveSearch.UNLIKELY_REPLY) {
+                    continue;
+                }
+                score = (int) (p * 1_000_000);
+            }
+            count = insert(ordered, scores, count, move, score);
+        }
+        if (count == 0 && ply == 0 && replies != null) {
+            // the model ruled out every safe reply, fall back to all of them
+            for (int move = 0; move < 4; move++) {
+                if (simulator.isSafe(snake, move)) {
+                    count = insert(ordered, scores, count, move, 0);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int insert(int[] ordered, int[] scores, int count, int move, int score) {
+        int i = count;
+        while (i > 0 && scores[i - 1] < score) {
+            ordered[i] = ordered[i - 1];
+            scores[i] = scores[i - 1];
+            i--;
+        }
+        ordered[i] = move;
+        scores[i] = score;
+        return count + 1;
+    }
+
+    // Opponents far from us play their predicted move, or else keep going straight while they can
+    private int passiveMove(int snake, int ply) {
+        if (ply == 0 && replies != null) {
+            int best = Simulator.UP;
+            for (int move = 1; move < 4; move++) {
+                if (replies[snake - 1][move] > replies[snake - 1][best]) {
+                    best = move;
+                }
+            }
+            return best;
+        }
+        int head = simulator.getHead(snake);
+        int neck = simulator.getLength(snake) > 1 ? simulator.getBody(snake, 1) : head;
+        for (int move = 0; move < 4; move++) {
+            if (simulator.neighbour(neck, move) == head && simulator.isSafe(snake, move)) {
+                return move;
+            }
+        }
+        for (int move = 0; move < 4; move++) {
+            if (simulator.isSafe(snake, move)) {
+                return move;
+            }
+        }
+        return Simulator.UP;
+    }
+
+    // Territory we reach first, length lead and health, from our point of view
+    private int evaluate() {
+        int count = 0;
+        int longest = 0;
+        int alive = 0;
+        heads[count++] = simulator.getHead(0);
+        for (int s = 1; s < snakeCount; s++) {
+            if (simulator.isAlive(s)) {
+                heads[count++] = simulator.getHead(s);
+                longest = Math.max(longest, simulator.getLength(s));
+                alive++;
+            }
+        }
+        int territory = area.voronoi(heads, count, 0, null, simulator.occupancy());
+        return territory * TERRITORY_WEIGHT
+                + (simulator.getLength(0) - longest) * LENGTH_WEIGHT
+                + simulator.getHealth(0)
+                - alive * OPPONENT_ALIVE_PENALTY;
+    }
+}
@@ -0,0 +1,155 @@
+package com.battlesnake.starter;
+
+import java.util.Arrays;
+
+/**
+ * Shortest paths around bodies on a flat grid of cell indices.
+ *
+ * Every step costs one move, so breadth-first order is already the order an
+ * A* open set would pop cells in, and the open set is a plain preallocated
+ * int queue. Like {@link AreaEvaluator}, visited marks are stamped with a
+ * generation number so a search only touches the cells it reaches, and an
+ * instance is not thread safe.
+ *
+ * Two kinds of search: {@link #nearest} walks forward from one cell until it
+ * meets the first target, and {@link #moveDistances} walks backward from all
+ * targets at once until it has reached every free cell around a head, which
+ * gives the true path length for each of the head's moves in one traversal.
+ */
+public class PathFinder {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final ThreadLocal<PathFinder> LOCAL = new ThreadLocal<>();
+
+    private final Geometry geometry;
+    private final int[] queue;
+    private final int[] stamp;
+    private final int[] distance;
+    private int generation;
+    private int mark;
+
+    public PathFinder(Geometry geometry) {
+        this.geometry = geometry;
+        int cells = geometry.getCells();
+        this.queue = new int[cells];
+        this.stamp = new int[cells];
+        this.distance = new int[cells];
+    }
+
+    // This thread's instance for the geometry, reused across calls
+    public static PathFinder local(Geometry geometry) {
+        PathFinder finder = LOCAL.get();
+        if (finder == null || finder.geometry != geometry) {
+            finder = new PathFinder(geometry);
+            LOCAL.set(finder);
+        }
+        return finder;
+    }
+
+    private int nextGeneration() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        mark = generation;
+        return mark;
+    }
+
+    /**
+     * Moves from start to the closest target cell, 0 if start is one. Obstacles
+     * follow {@link AreaEvaluator}: a cell first reached on turn t can be
+     * entered if occupiedThrough[cell] &lt; t and counts[cell] == 0.
+     *
+     * @param turn turns already played when standing on start
+     * @return the path length, or UNREACHABLE
+     */
+    public int nearest(int start, BitBoard targets, int turn, int[] occupiedThrough, int[] counts) {
+        if (targets.get(start)) {
+            return 0;
+        }
+        int mark = nextGeneration();
+        int head = 0;
+        int tail = 0;
+        stamp[start] = mark;
+        distance[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int cell = queue[head++];
+            int nextDistance = distance[cell] + 1;
+            for (int move = 0; move < 4; move++) {
+                int next = geometry.neighbour(cell, move);
+                if (next == Geometry.OFF_BOARD || stamp[next] == mark) {
+                    continue;
+                }
+                if ((occupiedThrough == null || occupiedThrough[next] < turn + nextDistance)
+                        && (counts == null || counts[next] == 0)) {
+                    if (targets.get(next)) {
+                        return nextDistance;
+                    }
+                    stamp[next] = mark;
+                    distance[next] = nextDistance;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return UNREACHABLE;
+    }
+
+    /**
+     * Fills distances[move] with the length of the shortest path from head to
+     * any target that starts with move, UNREACHABLE where there is none.
+     * Targets count as reached even when blocked, like a tail about to move.
+     *
+     * @param targets     target cells, the first targetCount entries are used
+     * @param blocked     cells no path may cross
+     * @param distances   four entries, indexed like {@link MoveSearch#MOVES}
+     */
+    public void moveDistances(int head, int[] targets, int targetCount, BitBoard blocked, int[] distances) {
+        int mark = nextGeneration();
+        int first = 0;
+        int tail = 0;
+        for (int i = 0; i < targetCount; i++) {
+            int cell = targets[i];
+            if (cell != Geometry.OFF_BOARD && stamp[cell] != mark) {
+                stamp[cell] = mark;
+                distance[cell] = 0;
+                queue[tail++] = cell;
+            }
+        }
+        // stop as soon as every open cell around the head has its distance
+        int pending = 0;
+        for (int move = 0; move < 4; move++) {
+            int next = geometry.neighbour(head, move);
+            if (next != Geometry.OFF_BOARD && stamp[next] != mark && !blocked.get(next)) {
+                pending++;
+            }
+        }
+        while (first < tail && pending > 0) {
+            int cell = queue[first++];
+            int nextDistance = distance[cell] + 1;
+            for (int move = 0; move < 4; move++) {
+                int next = geometry.neighbour(cell, move);
+                if (next == Geometry.OFF_BOARD || stamp[next] == mark || blocked.get(next)) {
+                    continue;
+                }
+                stamp[next] = mark;
+                distance[next] = nextDistance;
+                queue[tail++] = next;
+                for (int around = 0; around < 4; around++) {
+                    if (geometry.neighbour(head, around) == next) {
+                        pending--;
+                    }
+                }
+            }
+        }
+        for (int move = 0; move < 4; move++) {
+            int next = geometry.neighbour(head, move);
+            distances[move] = next == Geometry.OFF_BOARD || stamp[next] != mark ? UNREACHABLE : distance[next] + 1;
+        }
+    }
+
+    // Moves from cell to the nearest target in the last moveDistances call, UNREACHABLE if it was not reached
+    public int distance(int cell) {
+        return cell != Geometry.OFF_BOARD && stamp[cell] == mark ? distance[cell] : UNREACHABLE;
+    }
+}
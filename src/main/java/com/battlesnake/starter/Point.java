@@ -1,16 +1,39 @@
 package com.battlesnake.starter;
 
-import java.util.Objects;
-
+/**
+ * An immutable board coordinate. Use {@link #of(int, int)}, which hands out
+ * one shared instance per coordinate for every board up to CACHE_SIZE - 1
+ * cells across (and the ring just outside it), so requests do not allocate
+ * Points.
+ */
 public class Point {
-    private int x;
-    private int y;
+    // covers x and y from -1 to CACHE_SIZE - 2
+    static final int CACHE_SIZE = 64;
+    private static final Point[] CACHE = new Point[CACHE_SIZE * CACHE_SIZE];
+
+    static {
+        for (int x = -1; x < CACHE_SIZE - 1; x++) {
+            for (int y = -1; y < CACHE_SIZE - 1; y++) {
+                CACHE[(x + 1) * CACHE_SIZE + y + 1] = new Point(x, y);
+            }
+        }
+    }
+
+    private final int x;
+    private final int y;
 
     public Point(int x, int y) {
         this.x = x;
         this.y = y;
     }
 
+    public static Point of(int x, int y) {
+        if (x >= -1 && y >= -1 && x < CACHE_SIZE - 1 && y < CACHE_SIZE - 1) {
+            return CACHE[(x + 1) * CACHE_SIZE + y + 1];
+        }
+        return new Point(x, y);
+    }
+
     public int getX() {
         return x;
     }
@@ -37,6 +60,6 @@ public class Point {
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return 31 * x + y;
     }
 }
@@ -0,0 +1,186 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records every /start, /move and /end a game sends us, with the move we chose
+ * and how long it took, so real games can be replayed by {@link ReplayRunner}.
+ *
+ * Off unless REPLAY_DIR is set. Each game goes to REPLAY_DIR/&lt;game id&gt;.jsonl.gz,
+ * one JSON object per request:
+ * {"route":"/move","turn":3,"move":"up","micros":1234,"body":{...}}.
+ *
+ * Request threads only queue the raw body; one daemon thread does the
+ * formatting, compression and disk IO. A game's file is closed on /end. At
+ * most REPLAY_OPEN_FILES stay open at once; when a game's file was closed
+ * early it is reopened for appending, which starts a new gzip member that
+ * GZIPInputStream reads through transparently.
+ */
+public final class ReplayRecorder {
+    public static final String DIRECTORY = System.getProperty("REPLAY_DIR");
+    private static final int OPEN_FILES = Integer.getInteger("REPLAY_OPEN_FILES", 256);
+    private static final int CAPACITY = Integer.getInteger("REPLAY_BUFFER", 8192);
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplayRecorder.class);
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final ArrayBlockingQueue<Entry> BUFFER = new ArrayBlockingQueue<>(CAPACITY);
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    static {
+        if (DIRECTORY != null) {
+            new File(DIRECTORY).mkdirs();
+            Thread writer = new Thread(ReplayRecorder::drain, "replay-recorder");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    private ReplayRecorder() {
+    }
+
+    public static boolean isEnabled() {
+        return DIRECTORY != null;
+    }
+
+    /**
+     * Queues one request of a game for writing. Never blocks: when the writer
+     * falls behind the entry is dropped and counted.
+     *
+     * @param body raw JSON request body, must not be modified afterwards
+     * @param move the move we answered, null for /start and /end
+     */
+    public static void record(String route, String gameId, int turn, byte[] body, String move, long nanos) {
+        if (DIRECTORY == null || gameId == null) {
+            return;
+        }
+        if (!BUFFER.offer(new Entry(route, gameId, turn, body, move, nanos))) {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    public static long getDropped() {
+        return DROPPED.get();
+    }
+
+    // File a game is recorded to, ids are sanitised so they cannot escape the directory
+    static File file(File directory, String gameId) {
+        return new File(directory, gameId.replaceAll("[^A-Za-z0-9._-]", "_") + ".jsonl.gz");
+    }
+
+    private static void drain() {
+        // least recently written game first
+        LinkedHashMap<String, OutputStream> open = new LinkedHashMap<>(16, 0.75f, true);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            synchronized (open) {
+                open.values().forEach(ReplayRecorder::closeQuietly);
+                open.clear();
+            }
+        }));
+        File directory = new File(DIRECTORY);
+        long reported = 0;
+        while (true) {
+            Entry entry;
+            try {
+                entry = BUFFER.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            long dropped = DROPPED.get();
+            if (dropped != reported) {
+                LOG.warn("Replay buffer full, dropped {} requests", dropped - reported);
+                reported = dropped;
+            }
+            synchronized (open) {
+                try {
+                    OutputStream out = open.get(entry.gameId);
+                    if (out == null) {
+                        out = new GZIPOutputStream(new FileOutputStream(file(directory, entry.gameId), true), 8192);
+                        open.put(entry.gameId, out);
+                        closeEldest(open);
+                    }
+                    entry.writeTo(out);
+                    if (entry.route.equals("/end")) {
+                        open.remove(entry.gameId).close();
+                    }
+                } catch (IOException e) {
+                    LOG.warn("Could not record game {}", entry.gameId, e);
+                    closeQuietly(open.remove(entry.gameId));
+                }
+            }
+        }
+    }
+
+    private static void closeEldest(LinkedHashMap<String, OutputStream> open) {
+        Iterator<Map.Entry<String, OutputStream>> it = open.entrySet().iterator();
+        while (open.size() > OPEN_FILES && it.hasNext()) {
+            closeQuietly(it.next().getValue());
+            it.remove();
+        }
+    }
+
+    private static void closeQuietly(OutputStream out) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            LOG.warn("Could not close replay file", e);
+        }
+    }
+
+    // Writes one request in the replay file format
+    static void write(OutputStream out, String route, int turn, byte[] body, String move, long nanos) throws IOException {
+        JsonGenerator json = JSON.createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.writeStartObject();
+        json.writeStringField("route", route);
+        json.writeNumberField("turn", turn);
+        if (move != null) {
+            json.writeStringField("move", move);
+        }
+        json.writeNumberField("micros", nanos / 1000);
+        json.writeFieldName("body");
+        json.writeRawValue(new String(body, StandardCharsets.UTF_8));
+        json.writeEndObject();
+        json.close();
+        out.write('\n');
+    }
+
+    private static final class Entry {
+        final String route;
+        final String gameId;
+        final int turn;
+        final byte[] body;
+        final String move;
+        final long nanos;
+
+        Entry(String route, String gameId, int turn, byte[] body, String move, long nanos) {
+            this.route = route;
+            this.gameId = gameId;
+            this.turn = turn;
+            this.body = body;
+            this.move = move;
+            this.nanos = nanos;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            write(out, route, turn, body, move, nanos);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays games recorded by {@link ReplayRecorder} through the current
+ * {@link Snake.Handler} and reports where the decisions changed and how the
+ * decision times compare.
+ *
+ * Usage: ReplayRunner [--threads N] [--budget MS] [--turns] [--strict] FILE_OR_DIR...
+ *
+ * Games are replayed in parallel, the turns of a game in order so its session
+ * state builds up as it did live. --budget replaces game.timeout so long
+ * recordings can be replayed faster than they were played, --turns prints
+ * every turn rather than only the diffs, and --strict exits with status 1 when
+ * any decision changed.
+ */
+public class ReplayRunner {
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    private final Snake.Handler handler = new Snake.Handler();
+    private final int budgetMillis;
+    private final boolean printTurns;
+
+    public ReplayRunner(int budgetMillis, boolean printTurns) {
+        this.budgetMillis = budgetMillis;
+        this.printTurns = printTurns;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Snake.Handler.MAX_DECISIONS;
+        int budget = 0;
+        boolean turns = false;
+        boolean strict = false;
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--budget")) {
+                budget = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--turns")) {
+                turns = true;
+            } else if (args[i].equals("--strict")) {
+                strict = true;
+            } else {
+                collect(new File(args[i]), files);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: ReplayRunner [--threads N] [--budget MS] [--turns] [--strict] FILE_OR_DIR...");
+            System.exit(2);
+        }
+
+        Report report = new ReplayRunner(budget, turns).replay(files, threads, System.out);
+        report.print(System.out);
+        System.exit(strict && report.diffs > 0 ? 1 : 0);
+    }
+
+    static void collect(File file, List<File> files) {
+        File[] children = file.listFiles();
+        if (children == null) {
+            files.add(file);
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory() || child.getName().endsWith(".jsonl.gz")) {
+                collect(child, files);
+            }
+        }
+    }
+
+    /**
+     * Replays every file, one game per task.
+     *
+     * @param out where diffs (and with --turns every turn) are printed as they happen
+     */
+    public Report replay(List<File> files, int threads, PrintStream out) throws Exception {
+        ExecutorService games = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Report>> reports = new ArrayList<>();
+            for (File file : files) {
+                reports.add(games.submit(() -> replay(file, out)));
+            }
+            Report total = new Report();
+            for (Future<Report> report : reports) {
+                total.add(report.get());
+            }
+            return total;
+        } finally {
+            games.shutdown();
+        }
+    }
+
+    /**
+     * Replays one recorded game.
+     */
+    public Report replay(File file, PrintStream out) throws IOException {
+        Report report = new Report();
+        report.games = 1;
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file), 8192);
+             MappingIterator<JsonNode> requests = JSON_MAPPER.readerFor(JsonNode.class).readValues(in)) {
+            while (requests.hasNext()) {
+                JsonNode request = requests.next();
+                String route = request.path("route").asText();
+                JsonNode body = request.path("body");
+                if (route.equals("/start")) {
+                    handler.start(body);
+                } else if (route.equals("/end")) {
+                    handler.end(body);
+                } else if (route.equals("/move")) {
+                    String recorded = request.path("move").asText(null);
+                    long recordedMicros = request.path("micros").asLong();
+                    GameState game = MoveRequestParser.parse(JSON_MAPPER.writeValueAsBytes(body));
+                    if (budgetMillis > 0) {
+                        game.timeout = (int) (budgetMillis + MoveSearch.MARGIN_MS);
+                    }
+                    long startNanos = System.nanoTime();
+                    Map<String, String> response = handler.move(game);
+                    long micros = (System.nanoTime() - startNanos) / 1000;
+                    String replayed = response.get("move");
+
+                    boolean diff = recorded != null && !recorded.equals(replayed);
+                    report.addTurn(recordedMicros, micros, diff);
+                    if (diff || printTurns) {
+                        synchronized (out) {
+                            out.printf("%s\t%s\t%d\t%s\t%s\t%d\t%d%n", diff ? "DIFF" : "SAME", file.getName(),
+                                    request.path("turn").asInt(), recorded, replayed, recordedMicros, micros);
+                        }
+                    }
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Totals of a replay.
+     */
+    public static class Report {
+        int games;
+        int turns;
+        int diffs;
+        private long[] recordedMicros = new long[64];
+        private long[] replayedMicros = new long[64];
+
+        void addTurn(long recorded, long replayed, boolean diff) {
+            if (turns == recordedMicros.length) {
+                recordedMicros = Arrays.copyOf(recordedMicros, turns * 2);
+                replayedMicros = Arrays.copyOf(replayedMicros, turns * 2);
+            }
+            recordedMicros[turns] = recorded;
+            replayedMicros[turns] = replayed;
+            turns++;
+            if (diff) {
+                diffs++;
+            }
+        }
+
+        void add(Report other) {
+            games += other.games;
+            for (int i = 0; i < other.turns; i++) {
+                addTurn(other.recordedMicros[i], other.replayedMicros[i], false);
+            }
+            diffs += other.diffs;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getTurns() {
+            return turns;
+        }
+
+        public int getDiffs() {
+            return diffs;
+        }
+
+        void print(PrintStream out) {
+            out.printf("%d games, %d turns, %d decisions changed%n", games, turns, diffs);
+            out.printf("recorded micros %s%n", percentiles(recordedMicros));
+            out.printf("replayed micros %s%n", percentiles(replayedMicros));
+        }
+
+        private String percentiles(long[] micros) {
+            if (turns == 0) {
+                return "-";
+            }
+            long[] sorted = Arrays.copyOf(micros, turns);
+            Arrays.sort(sorted);
+            return String.format("p50 %d  p90 %d  p99 %d  max %d", sorted[turns / 2], sorted[turns * 9 / 10],
+                    sorted[turns * 99 / 100], sorted[turns - 1]);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous, sampled log of what the snake was asked and what it answered.
+ *
+ * Request threads only drop a small event into a bounded ring buffer; a single
+ * daemon thread formats each one as a line of JSON and hands it to the slf4j
+ * logger "requests". When the buffer is full events are dropped rather than
+ * making a move wait, and the writer reports how many were lost.
+ *
+ * Whole games are sampled, so a sampled game is logged turn by turn: a fraction
+ * LOG_SAMPLE_RATE of games (default 0.1) get their request bodies, /start and
+ * /end included, and move decisions logged.
+ */
+public final class RequestLog {
+    public static final double SAMPLE_RATE = Double.parseDouble(System.getProperty("LOG_SAMPLE_RATE", "0.1"));
+    public static final int CAPACITY = Integer.getInteger("LOG_BUFFER", 4096);
+    private static final long SAMPLE_SEED = 0x2545F4914F6CDD1DL;
+
+    private static final Logger LOG = LoggerFactory.getLogger("requests");
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final ArrayBlockingQueue<Event> BUFFER = new ArrayBlockingQueue<>(CAPACITY);
+    private static final AtomicLong DROPPED = new AtomicLong();
+
+    static {
+        Thread writer = new Thread(RequestLog::drain, "request-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private RequestLog() {
+    }
+
+    /**
+     * Whether the game is one of the sampled ones. Decided by its id alone, so
+     * every turn of a game gets the same answer on every thread. Requests
+     * without a game id are only logged when every game is.
+     */
+    public static boolean isSampled(String gameId) {
+        if (SAMPLE_RATE >= 1) {
+            return true;
+        }
+        if (gameId == null) {
+            return false;
+        }
+        // seeded, since mix(0) is 0 and would put every id hashing to 0 in the sampled bucket
+        long bucket = Zobrist.mix(gameId.hashCode() + SAMPLE_SEED) >>> 40;
+        return bucket < SAMPLE_RATE * (1L << 24);
+    }
+
+    /**
+     * Logs a request body. The body is written out as is, so it must be JSON.
+     */
+    public static void request(String route, String gameId, int turn, String body) {
+        Event event = new Event("request", route, gameId, turn);
+        event.body = body;
+        publish(event);
+    }
+
+    public static void move(String gameId, int turn, String move, long nodes, int depth, long micros) {
+        Event event = new Event("move", "/move", gameId, turn);
+        event.move = move;
+        event.nodes = nodes;
+        event.depth = depth;
+        event.micros = micros;
+        publish(event);
+    }
+
+    public static long getDropped() {
+        return DROPPED.get();
+    }
+
+    private static void publish(Event event) {
+        if (!BUFFER.offer(event)) {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    private static void drain() {
+        long reported = 0;
+        StringWriter line = new StringWriter(1024);
+        while (true) {
+            try {
+                Event event = BUFFER.poll(1, TimeUnit.SECONDS);
+                long dropped = DROPPED.get();
+                if (dropped != reported) {
+                    LOG.warn("Request log buffer full, dropped {} events", dropped - reported);
+                    reported = dropped;
+                }
+                if (event == null) {
+                    continue;
+                }
+                line.getBuffer().setLength(0);
+                event.writeTo(line);
+                LOG.info(line.toString());
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Could not write request log event", e);
+            }
+        }
+    }
+
+    private static final class Event {
+        final long time = System.currentTimeMillis();
+        final String type;
+        final String route;
+        final String gameId;
+        final int turn;
+        String body;
+        String move;
+        long nodes;
+        int depth;
+        long micros;
+
+        Event(String type, String route, String gameId, int turn) {
+            this.type = type;
+            this.route = route;
+            this.gameId = gameId;
+            this.turn = turn;
+        }
+
+        void writeTo(StringWriter out) throws IOException {
+            try (JsonGenerator json = JSON.createGenerator(out)) {
+                json.writeStartObject();
+                json.writeNumberField("time", time);
+                json.writeStringField("type", type);
+                json.writeStringField("route", route);
+                if (gameId != null) {
+                    json.writeStringField("game", gameId);
+                }
+                json.writeNumberField("turn", turn);
+                if (move != null) {
+                    json.writeStringField("move", move);
+                    json.writeNumberField("nodes", nodes);
+                    json.writeNumberField("depth", depth);
+                    json.writeNumberField("micros", micros);
+                }
+                if (body != null && !body.isEmpty()) {
+                    json.writeFieldName("body");
+                    json.writeRawValue(body);
+                }
+                json.writeEndObject();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every response the snake can give, serialized once at startup.
+ *
+ * A /move answer is one of four bodies, / never changes and /start and /end
+ * answer with an empty object, so each request just picks a code and the
+ * servers write the cached bytes. Jackson is never on the response path.
+ * The SHOUT system property adds the same shout to every move.
+ */
+public final class Responses {
+    // codes after the move indices 0..3
+    public static final int INDEX = 4;
+    public static final int EMPTY = 5;
+
+    public static final String CONTENT_TYPE = "application/json";
+    static final String SHOUT = System.getProperty("SHOUT");
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final List<Map<String, String>> MAPS;
+    private static final byte[][] BYTES;
+
+    static {
+        List<Map<String, String>> maps = new ArrayList<>(EMPTY + 1);
+        for (int move = 0; move < MoveSearch.MOVES.length; move++) {
+            Map<String, String> response = new HashMap<>();
+            response.put("move", MoveSearch.MOVES[move]);
+            if (SHOUT != null) {
+                response.put("shout", SHOUT);
+            }
+            maps.add(Collections.unmodifiableMap(response));
+        }
+        maps.add(INDEX, Collections.unmodifiableMap(Snake.Handler.buildIndex()));
+        maps.add(EMPTY, Collections.<String, String>emptyMap());
+
+        MAPS = Collections.unmodifiableList(maps);
+        BYTES = new byte[MAPS.size()][];
+        for (int code = 0; code < MAPS.size(); code++) {
+            try {
+                BYTES[code] = JSON_MAPPER.writeValueAsBytes(MAPS.get(code));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private Responses() {
+    }
+
+    /**
+     * The response for a code, shared and read only.
+     *
+     * @param code a move index, INDEX or EMPTY
+     */
+    public static Map<String, String> map(int code) {
+        return MAPS.get(code);
+    }
+
+    /**
+     * The response for a code as UTF-8 JSON. Shared, must not be modified.
+     */
+    public static byte[] bytes(int code) {
+        return BYTES[code];
+    }
+
+    // The move named in a response code, or null for non-move responses
+    public static String move(int code) {
+        return code < MoveSearch.MOVES.length ? MoveSearch.MOVES[code] : null;
+    }
+}
@@ -0,0 +1,27 @@
+package com.battlesnake.starter;
+
+/**
+ * A move search over one position, see {@link MoveSearch} and
+ * {@link ParanoidSearch}. Searches are single use: build one per request.
+ */
+public interface Search {
+
+    /**
+     * Searches until the deadline and returns the best move found.
+     *
+     * @param deadline  System.nanoTime() by which we must have an answer
+     * @param preferred move index tried first, returned if nothing better is found
+     * @return index into {@link MoveSearch#MOVES}
+     */
+    int findMove(long deadline, int preferred);
+
+    /**
+     * Our best move on the turn after playing move, as far as the last
+     * {@link #findMove} call looked, or TranspositionTable.NO_MOVE.
+     */
+    int plannedReply(int move);
+
+    int getDepthReached();
+
+    long getNodes();
+}
@@ -0,0 +1,378 @@
+package com.battlesnake.starter;
+
+import java.util.Arrays;
+
+/**
+ * In-place make/unmake implementation of the standard ruleset.
+ *
+ * Every snake is a ring buffer of cell indices with the head at
+ * ring[s][headPos[s]], so a move writes one int and a tail shrink writes none.
+ * {@link #step(int[])} pushes just enough onto a flat undo stack for
+ * {@link #undo()} to restore the previous turn exactly. After {@link #load(Board)}
+ * nothing is allocated until the undo stack has to grow.
+ *
+ * Turn order follows the official engine: move, reduce health, hazard damage,
+ * feed, then eliminate (out of health, out of bounds, body collisions and lost
+ * head-to-heads) all at once. Food spawning is random and not simulated.
+ *
+ * The loaded board picks the topology and growth rule: wrapped boards step
+ * across edges through the {@link Geometry} neighbour table, and constrictor
+ * snakes grow and heal every turn as if they had eaten.
+ */
+public class Simulator {
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+
+    static final int OFF_BOARD = Geometry.OFF_BOARD;
+
+    // undo record flags
+    private static final int MOVED = 1;
+    private static final int ATE = 2;
+    private static final int DIED = 4;
+    // grew by eating the food on its head cell, as opposed to constrictor growth
+    private static final int FED = 8;
+    private static final int RECORD = 3;
+
+    private final int width;
+    private final int height;
+    private final int cells;
+    private final int ringMask;
+    private Geometry geometry;
+    private boolean growing;
+    private int hazardDamage = MoveSearch.HAZARD_DAMAGE;
+
+    private int snakeCount;
+    private int[][] ring = new int[0][];
+    private int[] headPos = new int[0];
+    private int[] length = new int[0];
+    private int[] health = new int[0];
+    private boolean[] alive = new boolean[0];
+
+    // body segments (heads included) on each cell, across all living snakes
+    private final int[] occupancy;
+    private final BitBoard food;
+    private final BitBoard hazards;
+
+    private int[] undoStack = new int[256];
+    private int undoTop;
+    private int turn;
+
+    public Simulator(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = width * height;
+        this.geometry = Geometry.forSize(width, height);
+        // a snake can never be longer than the board plus the turns we simulate
+        int capacity = Integer.highestOneBit(cells * 2) << 1;
+        this.ringMask = capacity - 1;
+        this.occupancy = new int[cells];
+        this.food = new BitBoard(width, height);
+        this.hazards = new BitBoard(width, height);
+    }
+
+    /**
+     * Loads a board with ourselves as snake 0 and the opponents after us.
+     */
+    public void load(Board board) {
+        ensureSnakes(board.getOpponentCount() + 1);
+        geometry = board.getGeometry();
+        growing = board.isConstrictor();
+
+        Arrays.fill(occupancy, 0);
+        snakeCount = board.getOpponentCount() + 1;
+        for (int s = 0; s < snakeCount; s++) {
+            BattleSnake snake = s == 0 ? board.getYou() : board.getOpponent(s - 1);
+            headPos[s] = 0;
+            length[s] = snake.getLength();
+            health[s] = snake.getHealth();
+            alive[s] = true;
+            for (int i = 0; i < snake.getLength(); i++) {
+                int cell = snake.getCell(i);
+                ring[s][i] = cell;
+                occupancy[cell]++;
+            }
+        }
+        food.copyFrom(board.getFoodMask());
+        hazards.copyFrom(board.getHazards());
+        hazardDamage = board.getHazardDamage();
+        undoTop = 0;
+        turn = 0;
+    }
+
+    private void ensureSnakes(int count) {
+        if (ring.length >= count) {
+            return;
+        }
+        ring = Arrays.copyOf(ring, count);
+        for (int s = 0; s < count; s++) {
+            if (ring[s] == null) {
+                ring[s] = new int[ringMask + 1];
+            }
+        }
+        headPos = Arrays.copyOf(headPos, count);
+        length = Arrays.copyOf(length, count);
+        health = Arrays.copyOf(health, count);
+        alive = Arrays.copyOf(alive, count);
+    }
+
+    // Replaces the food on the board, e.g. with what the engine spawned since load
+    public void setFood(BitBoard food) {
+        this.food.copyFrom(food);
+    }
+
+    public void setHazards(BitBoard hazards) {
+        this.hazards.copyFrom(hazards);
+    }
+
+    // Makes the current turn the new starting point, steps before it can no longer be undone
+    public void clearHistory() {
+        undoTop = 0;
+        turn = 0;
+    }
+
+    public void setHazardDamage(int hazardDamage) {
+        this.hazardDamage = hazardDamage;
+    }
+
+    // Cell reached by moving from cell in the given direction, or OFF_BOARD
+    public int neighbour(int cell, int move) {
+        return geometry.neighbour(cell, move);
+    }
+
+    /**
+     * Cheap legality check used to prune obviously losing moves: on the board
+     * and not into a body segment that will still be there next turn.
+     */
+    public boolean isSafe(int snake, int move) {
+        int next = neighbour(getHead(snake), move);
+        if (next == OFF_BOARD) {
+            return false;
+        }
+        int count = occupancy[next];
+        for (int s = 0; s < snakeCount && count > 0; s++) {
+            // tails move away unless the snake has just eaten
+            if (alive[s] && getTail(s) == next && getBody(s, length[s] - 2) != next) {
+                count--;
+            }
+        }
+        return count == 0;
+    }
+
+    /**
+     * Advances one turn. Dead snakes ignore their entry in moves.
+     *
+     * @param moves one of UP, DOWN, LEFT, RIGHT per snake
+     */
+    public void step(int[] moves) {
+        if (undoTop + snakeCount * RECORD > undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+        }
+        int base = undoTop;
+
+        // move, reduce health, hazards, feed
+        for (int s = 0; s < snakeCount; s++) {
+            int record = base + s * RECORD;
+            if (!alive[s]) {
+                undoStack[record + 2] = 0;
+                continue;
+            }
+            int tailSlot = (headPos[s] + length[s] - 1) & ringMask;
+            int oldTail = ring[s][tailSlot];
+            undoStack[record] = oldTail;
+            undoStack[record + 1] = health[s];
+            int flags = MOVED;
+
+            int next = neighbour(ring[s][headPos[s]], moves[s]);
+            headPos[s] = (headPos[s] - 1) & ringMask;
+            ring[s][headPos[s]] = next;
+            occupancy[oldTail]--;
+            health[s]--;
+            if (next != OFF_BOARD) {
+                occupancy[next]++;
+                boolean eating = food.get(next);
+                if (hazards.get(next) && !eating) {
+                    health[s] -= hazardDamage;
+                }
+                if (eating) {
+                    flags |= FED;
+                }
+                if (eating || growing) {
+                    health[s] = 100;
+                    int tail = ring[s][(headPos[s] + length[s] - 1) & ringMask];
+                    ring[s][(headPos[s] + length[s]) & ringMask] = tail;
+                    length[s]++;
+                    occupancy[tail]++;
+                    flags |= ATE;
+                }
+            }
+            undoStack[record + 2] = flags;
+        }
+
+        // food is shared, so only clear it once every snake has had the chance to eat
+        for (int s = 0; s < snakeCount; s++) {
+            if ((undoStack[base + s * RECORD + 2] & FED) != 0) {
+                food.clear(ring[s][headPos[s]]);
+            }
+        }
+
+        // starved and out of bounds snakes leave first, they neither block nor win a head-to-head
+        for (int s = 0; s < snakeCount; s++) {
+            int record = base + s * RECORD + 2;
+            if ((undoStack[record] & MOVED) != 0 && (health[s] <= 0 || ring[s][headPos[s]] == OFF_BOARD)) {
+                undoStack[record] |= DIED;
+                remove(s);
+            }
+        }
+        // collisions among the rest are decided together, then applied
+        for (int s = 0; s < snakeCount; s++) {
+            if (alive[s] && (undoStack[base + s * RECORD + 2] & MOVED) != 0 && collides(s)) {
+                undoStack[base + s * RECORD + 2] |= DIED;
+            }
+        }
+        for (int s = 0; s < snakeCount; s++) {
+            if (alive[s] && (undoStack[base + s * RECORD + 2] & DIED) != 0) {
+                remove(s);
+            }
+        }
+
+        undoTop = base + snakeCount * RECORD;
+        turn++;
+    }
+
+    private void remove(int s) {
+        alive[s] = false;
+        for (int i = 0; i < length[s]; i++) {
+            int cell = ring[s][(headPos[s] + i) & ringMask];
+            if (cell != OFF_BOARD) {
+                occupancy[cell]--;
+            }
+        }
+    }
+
+    private boolean collides(int s) {
+        int head = ring[s][headPos[s]];
+        // every segment on the head cell that is not itself a head is a body collision
+        int heads = 0;
+        for (int t = 0; t < snakeCount; t++) {
+            if (alive[t] && ring[t][headPos[t]] == head) {
+                heads++;
+                if (t != s && length[t] >= length[s]) {
+                    return true;
+                }
+            }
+        }
+        return occupancy[head] > heads;
+    }
+
+    /**
+     * Reverts the most recent {@link #step(int[])}.
+     */
+    public void undo() {
+        int base = undoTop - snakeCount * RECORD;
+        for (int s = snakeCount - 1; s >= 0; s--) {
+            int record = base + s * RECORD;
+            int flags = undoStack[record + 2];
+            if ((flags & MOVED) == 0) {
+                continue;
+            }
+            if ((flags & DIED) != 0) {
+                alive[s] = true;
+                for (int i = 0; i < length[s]; i++) {
+                    int cell = ring[s][(headPos[s] + i) & ringMask];
+                    if (cell != OFF_BOARD) {
+                        occupancy[cell]++;
+                    }
+                }
+            }
+            int head = ring[s][headPos[s]];
+            if ((flags & ATE) != 0) {
+                length[s]--;
+                occupancy[ring[s][(headPos[s] + length[s]) & ringMask]]--;
+            }
+            if ((flags & FED) != 0) {
+                food.set(head);
+            }
+            if (head != OFF_BOARD) {
+                occupancy[head]--;
+            }
+            headPos[s] = (headPos[s] + 1) & ringMask;
+            int oldTail = undoStack[record];
+            ring[s][(headPos[s] + length[s] - 1) & ringMask] = oldTail;
+            occupancy[oldTail]++;
+            health[s] = undoStack[record + 1];
+        }
+        undoTop = base;
+        turn--;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Turns simulated since load
+    public int getTurn() {
+        return turn;
+    }
+
+    public int getSnakeCount() {
+        return snakeCount;
+    }
+
+    public int getAliveCount() {
+        int count = 0;
+        for (int s = 0; s < snakeCount; s++) {
+            if (alive[s]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isAlive(int snake) {
+        return alive[snake];
+    }
+
+    public int getHealth(int snake) {
+        return health[snake];
+    }
+
+    public int getLength(int snake) {
+        return length[snake];
+    }
+
+    public int getHead(int snake) {
+        return ring[snake][headPos[snake]];
+    }
+
+    public int getTail(int snake) {
+        return getBody(snake, length[snake] - 1);
+    }
+
+    // Cell of a body segment, 0 is the head
+    public int getBody(int snake, int segment) {
+        return ring[snake][(headPos[snake] + segment) & ringMask];
+    }
+
+    public boolean isFood(int cell) {
+        return food.get(cell);
+    }
+
+    public boolean isHazard(int cell) {
+        return hazards.get(cell);
+    }
+
+    public int getOccupancy(int cell) {
+        return occupancy[cell];
+    }
+
+    // The live occupancy counts per cell, e.g. as AreaEvaluator obstacles. Must not be modified
+    int[] occupancy() {
+        return occupancy;
+    }
+}
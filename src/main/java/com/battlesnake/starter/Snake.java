@@ -1,6 +1,5 @@
 package com.battlesnake.starter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -8,9 +7,11 @@ import org.slf4j.LoggerFactory;
 import spark.Request;
 import spark.Response;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-
-import static spark.Spark.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is a simple Battlesnake server written in Java.
@@ -36,11 +37,9 @@ public class Snake {
         } else {
             LOG.info("Found system provided port: {}", port);
         }
-        port(Integer.parseInt(port));
-        get("/", HANDLER::process, JSON_MAPPER::writeValueAsString);
-        post("/start", HANDLER::process, JSON_MAPPER::writeValueAsString);
-        post("/move", HANDLER::process, JSON_MAPPER::writeValueAsString);
-        post("/end", HANDLER::process, JSON_MAPPER::writeValueAsString);
+        SnakeServer server = SnakeServer.create(System.getProperty("SERVER"));
+        server.start(Integer.parseInt(port), HANDLER);
+        LOG.info("Serving with {} on port {}", server.getClass().getSimpleName(), server.getPort());
     }
 
     /**
@@ -49,12 +48,49 @@ public class Snake {
     public static class Handler {
 
         /**
-         * For the start/end request
+         * State carried between turns of the games we are playing
+         */
+        private static final GameSessions SESSIONS = new GameSessions();
+
+        /**
+         * Moves searched at once. The search pool is shared, so beyond this each
+         * search would only get a slice of it; moves that cannot get in within
+         * half their time budget are answered without searching.
          */
-        private static final Map<String, String> EMPTY = new HashMap<>();
+        public static final int MAX_DECISIONS = Integer.getInteger("MAX_DECISIONS", MoveSearch.POOL.getParallelism());
+        private static final Semaphore DECISIONS = new Semaphore(MAX_DECISIONS);
 
         /**
-         * Generic processor that prints out the request and response from the methods.
+         * "solo" searches our own moves against predicted opponents, "paranoid"
+         * searches nearby opponents' replies adversarially, see {@link ParanoidSearch},
+         * and "mcts" runs {@link MonteCarloSearch}. "auto" picks per game: mcts for
+         * royale games and games of at least MCTS_MIN_SNAKES snakes, solo otherwise.
+         */
+        public static final String SEARCH_MODE = System.getProperty("SEARCH_MODE", "solo");
+        public static final int MCTS_MIN_SNAKES = Integer.getInteger("MCTS_MIN_SNAKES", 4);
+        // precomputed answers for common positions, see OpeningBookBuilder
+        static final OpeningBook BOOK = OpeningBook.open();
+        // per-move path lengths filled by closest, one array per request thread
+        private static final ThreadLocal<int[]> MOVE_DISTANCES = ThreadLocal.withInitial(() -> new int[4]);
+
+        // false for offline play, which bounds its own concurrency instead of queueing for DECISIONS
+        private final boolean admitting;
+
+        public Handler() {
+            this(true);
+        }
+
+        /**
+         * @param admitting whether moves wait for one of the MAX_DECISIONS search
+         *                  slots shared with live games, see {@link Tournament}
+         */
+        public Handler(boolean admitting) {
+            this.admitting = admitting;
+        }
+
+        /**
+         * Generic processor that routes each request and records its timings. Requests
+         * of sampled games are handed to the {@link RequestLog}.
          *
          * @param req
          * @param res
@@ -62,29 +98,106 @@ public class Snake {
          */
         public Map<String, String> process(Request req, Response res) {
             try {
-                JsonNode parsedRequest = JSON_MAPPER.readTree(req.body());
-                String uri = req.uri();
-                LOG.info("{} called with: {}", uri, req.body());
-                Map<String, String> snakeResponse;
-                if (uri.equals("/")) {
-                    snakeResponse = index();
-                } else if (uri.equals("/start")) {
-                    snakeResponse = start(parsedRequest);
-                } else if (uri.equals("/move")) {
-                    snakeResponse = move(parsedRequest);
-                } else if (uri.equals("/end")) {
-                    snakeResponse = end(parsedRequest);
+                return handle(req.uri(), req.bodyAsBytes());
+            } catch (IOException e) {
+                LOG.warn("Something went wrong!", e);
+                return null;
+            }
+        }
+
+        /**
+         * Like {@link #process} but answers with the precomputed JSON bytes from
+         * {@link Responses}, so nothing is serialized per request.
+         */
+        public byte[] serve(Request req, Response res) {
+            res.type(Responses.CONTENT_TYPE);
+            try {
+                return serve(req.uri(), req.bodyAsBytes());
+            } catch (IOException e) {
+                LOG.warn("Something went wrong!", e);
+                res.status(500);
+                return new byte[0];
+            }
+        }
+
+        /**
+         * Server independent entry point shared by every {@link SnakeServer}.
+         *
+         * @param uri  the route, e.g. "/move"
+         * @param body raw request body
+         * @return the response to send back as JSON, shared and read only
+         */
+        public Map<String, String> handle(String uri, byte[] body) throws IOException {
+            return Responses.map(dispatch(uri, body));
+        }
+
+        /**
+         * Same as {@link #handle} with the response already serialized.
+         *
+         * @return UTF-8 JSON, shared and must not be modified
+         */
+        public byte[] serve(String uri, byte[] body) throws IOException {
+            return Responses.bytes(dispatch(uri, body));
+        }
+
+        // Routes a request, returns its Responses code
+        private int dispatch(String uri, byte[] body) throws IOException {
+            long receivedNanos = System.nanoTime();
+            int snakeResponse;
+            String gameId = null;
+            int turn = 0;
+            if (uri.equals("/")) {
+                snakeResponse = Responses.INDEX;
+            } else if (uri.equals("/start") || uri.equals("/end")) {
+                JsonNode request = parseTree(uri, body);
+                gameId = request.path("game").path("id").asText(null);
+                turn = request.path("turn").asInt();
+                if (uri.equals("/start")) {
+                    start(request);
                 } else {
-                    throw new IllegalAccessError("Strange call made to the snake: " + uri);
+                    end(request);
+                }
+                snakeResponse = Responses.EMPTY;
+            } else if (uri.equals("/move")) {
+                // moves are the hot path, stream them straight into pooled buffers
+                GameState game = MoveRequestParser.parse(body);
+                Metrics.parse(uri).recordNanos(System.nanoTime() - receivedNanos);
+                if (RequestLog.isSampled(game.getGameId())) {
+                    RequestLog.request(uri, game.getGameId(), game.getTurn(), new String(body, StandardCharsets.UTF_8));
                 }
+                gameId = game.getGameId();
+                turn = game.getTurn();
+                snakeResponse = decide(game, receivedNanos);
+            } else {
+                throw new IllegalAccessError("Strange call made to the snake: " + uri);
+            }
 
-                LOG.info("Responding with: {}", JSON_MAPPER.writeValueAsString(snakeResponse));
+            long nanos = System.nanoTime() - receivedNanos;
+            Metrics.request(uri).recordNanos(nanos);
+            if (gameId != null && ReplayRecorder.isEnabled()) {
+                ReplayRecorder.record(uri, gameId, turn, body, Responses.move(snakeResponse), nanos);
+            }
+            return snakeResponse;
+        }
 
-                return snakeResponse;
-            } catch (JsonProcessingException e) {
-                LOG.warn("Something went wrong!", e);
-                return null;
+        private JsonNode parseTree(String uri, byte[] bytes) throws IOException {
+            long startNanos = System.nanoTime();
+            String body = new String(bytes, StandardCharsets.UTF_8);
+            JsonNode tree = JSON_MAPPER.readTree(body);
+            Metrics.parse(uri).recordNanos(System.nanoTime() - startNanos);
+            String gameId = tree.path("game").path("id").asText(null);
+            if (RequestLog.isSampled(gameId)) {
+                RequestLog.request(uri, gameId, tree.path("turn").asInt(), body);
             }
+            return tree;
+        }
+
+        /**
+         * Serves the recorded {@link Metrics} in the Prometheus text format.
+         */
+        public String metrics(Request req, Response res) {
+            res.type("text/plain; version=0.0.4; charset=utf-8");
+            return Metrics.scrape();
         }
 
         /**
@@ -96,6 +209,11 @@ public class Snake {
          *         values.
          */
         public Map<String, String> index() {
+            return Responses.map(Responses.INDEX);
+        }
+
+        // What index() answers, built once and cached by Responses
+        static Map<String, String> buildIndex() {
             Map<String, String> response = new HashMap<>();
             response.put("apiversion", "1");
             response.put("author", "Manish"); // TODO: Your Battlesnake Username
@@ -115,8 +233,11 @@ public class Snake {
          * @return responses back to the engine are ignored.
          */
         public Map<String, String> start(JsonNode startRequest) {
-            LOG.info("START");
-            return EMPTY;
+            String gameId = startRequest.path("game").path("id").asText(null);
+            if (gameId != null) {
+                SESSIONS.start(gameId);
+            }
+            return Responses.map(Responses.EMPTY);
         }
 
         /**
@@ -138,12 +259,6 @@ public class Snake {
          */
         public Map<String, String> move(JsonNode moveRequest) {
 
-            try {
-                LOG.info("Data: {}", JSON_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(moveRequest));
-            } catch (JsonProcessingException e) {
-                LOG.error("Error parsing payload", e);
-            }
-
             /*
              * Example how to retrieve data from the request payload:
              * 
@@ -153,25 +268,48 @@ public class Snake {
              * 
              */
 
-            // Current board state
-            Board state = new Board(moveRequest);
+            long receivedNanos = System.nanoTime();
+            Board board = new Board(moveRequest);
+            Metrics.BOARD_BUILD.recordNanos(System.nanoTime() - receivedNanos);
+            return Responses.map(decide(board, receivedNanos));
+        }
+
+        /**
+         * Same as {@link #move(JsonNode)} but fed from {@link MoveRequestParser}, so no
+         * JsonNode tree is ever built for the request.
+         *
+         * @param game parsed Game Board data, only valid for the current request.
+         * @return a Map<String,String> response back to the engine the single move to
+         *         make.
+         */
+        public Map<String, String> move(GameState game) {
+            return Responses.map(decide(game, System.nanoTime()));
+        }
+
+        private int decide(GameState game, long receivedNanos) {
+            long startNanos = System.nanoTime();
+            Board board = new Board(game);
+            Metrics.BOARD_BUILD.recordNanos(System.nanoTime() - startNanos);
+            return decide(board, receivedNanos);
+        }
+
+        // Picks our move as an index into MoveSearch.MOVES. receivedNanos is when the
+        // request arrived, the time budget counts from there
+        private int decide(Board state, long receivedNanos) {
+            long startNanos = System.nanoTime();
             // Current head position
             Point head = state.getYou().getHead();
             // Directions around head
-            Point moveUp = new Point(head.getX(), head.getY() + 1);
-            Point moveDown = new Point(head.getX(), head.getY() - 1);
-            Point moveLeft = new Point(head.getX() - 1, head.getY());
-            Point moveRight = new Point(head.getX() + 1, head.getY());
+            Point moveUp = around(state, Simulator.UP);
+            Point moveDown = around(state, Simulator.DOWN);
+            Point moveLeft = around(state, Simulator.LEFT);
+            Point moveRight = around(state, Simulator.RIGHT);
 
 
             // Determine safe moves
             ArrayList<Point> goodMoves = new ArrayList<Point>();
 
             ArrayList<Point> smarterMoves = getSmarterMoves(state, moveUp, moveDown, moveLeft, moveRight);
-            for (Point point : smarterMoves) {
-                LOG.info("SAFE MOVE {}", point.getX());
-                LOG.info("SAFE MOVE {}", point.getY());
-            }
 
             goodMoves.addAll(smarterMoves);
 
@@ -203,74 +341,165 @@ public class Snake {
 //            }
 
             String direction = "up";
-            Map<String, String> response = new HashMap<>();
 
             // If snake is hungry or if the snake is shorter than 6, chase food
-            if ((moveRequest.get("you").get("health").asInt() < 17 ||
-                    moveRequest.get("you").get("length").asInt() < 4 || moveRequest.get("you").get("length").asInt() % 2 != 0) &&
-                    !state.getFood().isEmpty()) {
+            if ((state.getYou().getHealth() < 17 ||
+                    state.getYou().getLength() < 4 || state.getYou().getLength() % 2 != 0) &&
+                    state.getFoodCount() > 0) {
                 direction = pointToString(chaseFood(goodMoves, state), moveUp, moveDown, moveLeft);
-                response.put("move", direction);
-                return response;
 
                 // Otherwise it will chase tail
             } else {
                 direction = pointToString(chaseTail(goodMoves, state), moveUp, moveDown, moveLeft);
-                response.put("move", direction);
-                return response;
             }
-        }
 
-        public static Point chaseTail(ArrayList<Point> smarterMoves, Board state) {
-            // find tail
-            Point tail = state.getYou().getTail();
+            // Try the reply planned last turn first if the game went as expected, else the greedy choice
+            int preferred = Arrays.asList(MoveSearch.MOVES).indexOf(direction);
+            int headCell = head.getY() * state.getWidth() + head.getX();
+            GameSession session = state.getGameId() == null ? null : SESSIONS.get(state.getGameId());
+            double[][] replies = null;
+            if (session != null) {
+                session.recordTurn(state);
+                replies = session.predictOpponents(state);
+                int planned = session.getPlannedMove(headCell);
+                if (planned != TranspositionTable.NO_MOVE) {
+                    preferred = planned;
+                }
+            }
 
-            // find move that brings snake closer to food
-            Point closerMove = null; // closer move
+            // Look ahead as far as the time budget allows, if there is room to search
+            long deadline = receivedNanos + TimeUnit.MILLISECONDS.toNanos(state.getTimeout() - MoveSearch.MARGIN_MS);
+            Search search = null;
+            int best = preferred;
+            int booked = BOOK.probe(state);
+            if (booked != TranspositionTable.NO_MOVE) {
+                best = booked;
+                Metrics.BOOK_HITS.increment();
+            } else if (!admitting || admit(deadline)) {
+                try {
+                    search = newSearch(state, replies);
+                    long searchNanos = System.nanoTime();
+                    best = search.findMove(deadline, preferred);
+                    searchNanos = System.nanoTime() - searchNanos;
+                    Metrics.NODES_PER_SECOND.record(search.getNodes() * 1e9 / Math.max(searchNanos, 1));
+                    Metrics.DEPTH.record(search.getDepthReached());
+                } finally {
+                    if (admitting) {
+                        DECISIONS.release();
+                    }
+                }
+                if (session != null) {
+                    session.plan(state.getGeometry().neighbour(headCell, best), search.plannedReply(best));
+                }
+            }
 
-            double closestDirection = 20; // closest direction to food
-            for (Point point : smarterMoves) {
-                double temp = calculateDistance(point, tail);
-                if (temp < closestDirection) {
-                    closestDirection = temp;
-                    closerMove = point;
+            long doneNanos = System.nanoTime();
+            Metrics.DECISION.recordNanos(doneNanos - startNanos);
+            Metrics.HEADROOM_SECONDS.recordNanos(TimeUnit.MILLISECONDS.toNanos(state.getTimeout()) - (doneNanos - receivedNanos));
+            if (RequestLog.isSampled(state.getGameId())) {
+                RequestLog.move(state.getGameId(), state.getTurn(), MoveSearch.MOVES[best],
+                        search == null ? 0 : search.getNodes(), search == null ? 0 : search.getDepthReached(),
+                        TimeUnit.NANOSECONDS.toMicros(doneNanos - receivedNanos));
+            }
+
+            return best;
+        }
+
+        // The point one move from our head, across the edge on wrapped boards
+        private static Point around(Board state, int move) {
+            Point head = state.getYou().getHead();
+            int cell = state.getYou().getCell(0);
+            int next = cell == Geometry.OFF_BOARD ? Geometry.OFF_BOARD : state.getGeometry().neighbour(cell, move);
+            if (next == Geometry.OFF_BOARD) {
+                return Point.of(head.getX() + MoveSearch.DX[move], head.getY() + MoveSearch.DY[move]);
+            }
+            return Point.of(state.getGeometry().x(next), state.getGeometry().y(next));
+        }
+
+        static Search newSearch(Board state, double[][] replies) {
+            String mode = SEARCH_MODE;
+            if ("auto".equals(mode)) {
+                boolean chaotic = "royale".equals(state.getRuleset()) || state.getSnakeCount() >= MCTS_MIN_SNAKES;
+                mode = chaotic ? "mcts" : "solo";
+            }
+            if (state.getOpponentCount() > 0) {
+                if ("paranoid".equals(mode)) {
+                    return new ParanoidSearch(state, replies);
+                }
+                if ("mcts".equals(mode)) {
+                    return new MonteCarloSearch(state, replies);
                 }
             }
-            return closerMove;
+            return new MoveSearch(state, replies);
+        }
+
+        // Waits for a search slot for at most half of the time left
+        private boolean admit(long deadline) {
+            long waitStart = System.nanoTime();
+            boolean admitted;
+            try {
+                admitted = DECISIONS.tryAcquire(Math.max(0, (deadline - waitStart) / 2), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                admitted = false;
+            }
+            Metrics.ADMISSION_WAIT.recordNanos(System.nanoTime() - waitStart);
+            if (!admitted) {
+                Metrics.ADMISSION_REJECTED.increment();
+            }
+            return admitted;
+        }
+
+        public static Point chaseTail(ArrayList<Point> smarterMoves, Board state) {
+            // find tail
+            BattleSnake you = state.getYou();
+            int[] tail = {you.getCell(you.getLength() - 1)};
+
+            // find move with the shortest path to the tail
+            return closest(smarterMoves, state, tail, 1);
         }
 
         public static Point chaseFood(ArrayList<Point> smarterMoves, Board state) {
-            // find closest food point
-            ArrayList<Food> foods = state.getFood();
-            Point food = null; // closest food
-            double closestFood = 20; // closest food location
-            for (Food piece : foods) {
-                double temp = calculateDistance(state.getYou().getHead(), piece.getLocation());
-                if (temp < closestFood) {
-                    closestFood = temp;
-                    food = piece.getLocation();
-                }
+            // find every food cell
+            int[] food = new int[state.getFoodCount()];
+            for (int i = 0; i < food.length; i++) {
+                int x = GameState.unpackX(state.getFood(i));
+                int y = GameState.unpackY(state.getFood(i));
+                food[i] = y * state.getWidth() + x;
             }
 
-            // find move that brings snake closer to food
-            Point closerMove = null; // closer move
-            double closestDirection = 20; // closest direction to food
+            // find move with the shortest path to any of them
+            return closest(smarterMoves, state, food, food.length);
+        }
+
+        // The move whose shortest path around bodies to a target is shortest, the first move if none gets there
+        private static Point closest(ArrayList<Point> smarterMoves, Board state, int[] targets, int targetCount) {
+            if (smarterMoves.isEmpty()) {
+                return null;
+            }
+            int head = state.getYou().getCell(0);
+            if (head == Geometry.OFF_BOARD) {
+                return smarterMoves.get(0);
+            }
+            Geometry geometry = state.getGeometry();
+            int[] distances = MOVE_DISTANCES.get();
+            PathFinder.local(geometry).moveDistances(head, targets, targetCount, state.getOccupied(), distances);
+            Point closerMove = smarterMoves.get(0);
+            int closestDistance = PathFinder.UNREACHABLE;
             for (Point point : smarterMoves) {
-                double temp = calculateDistance(point, food);
-                if (temp < closestDirection) {
-                    closestDirection = temp;
-                    closerMove = point;
+                boolean inside = point.getX() >= 0 && point.getY() >= 0
+                        && point.getX() < state.getWidth() && point.getY() < state.getHeight();
+                int cell = point.getY() * state.getWidth() + point.getX();
+                for (int move = 0; move < 4 && inside; move++) {
+                    if (geometry.neighbour(head, move) == cell && distances[move] < closestDistance) {
+                        closestDistance = distances[move];
+                        closerMove = point;
+                    }
                 }
             }
             return closerMove;
         }
 
-
-        // Calculate the Euclidian distance between two points
-        public static double calculateDistance(Point a, Point b) {
-            return Math.sqrt(Math.pow((a.getX() - b.getX()), 2) + Math.pow((a.getY() - b.getY()), 2));
-        }
-
         public String pointToString(Point point, Point moveUp, Point moveDown, Point moveLeft) {
             if (point == moveUp) {
                 return "up";
@@ -288,19 +517,19 @@ public class Snake {
         public ArrayList<Point> getSmarterMoves(Board state, Point moveUp, Point moveDown, Point moveLeft, Point moveRight) {
             ArrayList<Point> smarterMoves = new ArrayList<>(Arrays.asList(moveUp, moveDown, moveLeft, moveRight));
 
-            if (moveUp.getY() > 10 || state.getOccupied().contains(moveUp)) {
+            if (!state.isSafe(moveUp.getX(), moveUp.getY())) {
                 smarterMoves.remove(moveUp);
             }
 
-            if (moveDown.getY() < 0 || state.getOccupied().contains(moveDown)) {
+            if (!state.isSafe(moveDown.getX(), moveDown.getY())) {
                 smarterMoves.remove(moveDown);
             }
 
-            if (moveLeft.getX() < 0 || state.getOccupied().contains(moveLeft)) {
+            if (!state.isSafe(moveLeft.getX(), moveLeft.getY())) {
                 smarterMoves.remove(moveLeft);
             }
 
-            if (moveRight.getX() > 10 || state.getOccupied().contains(moveRight)) {
+            if (!state.isSafe(moveRight.getX(), moveRight.getY())) {
                 smarterMoves.remove(moveRight);
             }
             return smarterMoves;
@@ -352,8 +581,11 @@ public class Snake {
          * @return responses back to the engine are ignored.
          */
         public Map<String, String> end(JsonNode endRequest) {
-            LOG.info("END");
-            return EMPTY;
+            String gameId = endRequest.path("game").path("id").asText(null);
+            if (gameId != null) {
+                SESSIONS.end(gameId);
+            }
+            return Responses.map(Responses.EMPTY);
         }
     }
 
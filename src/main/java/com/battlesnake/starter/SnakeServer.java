@@ -0,0 +1,36 @@
+package com.battlesnake.starter;
+
+/**
+ * HTTP front end serving the snake's routes (/, /start, /move, /end and
+ * /metrics) from a {@link Snake.Handler}.
+ *
+ * Picked with the SERVER system property: "spark" (the default) runs on
+ * Spark's embedded Jetty, "jdk" on the JDK's built-in NIO HttpServer. Both
+ * keep connection handling on a bounded pool of SERVER_THREADS, separate from
+ * the search pool, and the handler's admission control bounds how many moves
+ * are searched at once.
+ */
+public interface SnakeServer {
+    int THREADS = Integer.getInteger("SERVER_THREADS", Math.max(16, 4 * Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Starts serving in the background.
+     *
+     * @param port port to listen on, 0 for any free port
+     */
+    void start(int port, Snake.Handler handler);
+
+    // Port actually listened on, once started
+    int getPort();
+
+    void stop();
+
+    static SnakeServer create(String name) {
+        if (name == null || name.equals("spark")) {
+            return new SparkServer();
+        } else if (name.equals("jdk")) {
+            return new JdkHttpServer();
+        }
+        throw new IllegalArgumentException("Unknown SERVER " + name + ", expected spark or jdk");
+    }
+}
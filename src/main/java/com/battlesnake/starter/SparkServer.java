@@ -0,0 +1,37 @@
+package com.battlesnake.starter;
+
+import spark.Service;
+
+/**
+ * The original front end: Spark on embedded Jetty, with Jetty's thread pool
+ * capped at SERVER_THREADS.
+ */
+public class SparkServer implements SnakeServer {
+    private static final int IDLE_TIMEOUT_MS = 30_000;
+
+    private Service http;
+
+    @Override
+    public void start(int port, Snake.Handler handler) {
+        http = Service.ignite()
+                .port(port)
+                .threadPool(THREADS, Math.min(8, THREADS), IDLE_TIMEOUT_MS);
+        // routes answer with precomputed JSON bytes, which Spark writes as they are
+        http.get("/", handler::serve);
+        http.post("/start", handler::serve);
+        http.post("/move", handler::serve);
+        http.post("/end", handler::serve);
+        http.get("/metrics", handler::metrics);
+        http.awaitInitialization();
+    }
+
+    @Override
+    public int getPort() {
+        return http.port();
+    }
+
+    @Override
+    public void stop() {
+        http.stop();
+    }
+}
@@ -0,0 +1,394 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless self-play: runs whole games in process on the {@link Simulator},
+ * asking {@link Snake.Handler#move(GameState)} for every snake's move each
+ * turn, and reports how the seats fared and how long decisions took.
+ *
+ * Usage: Tournament [--games N] [--snakes K] [--width W] [--height H]
+ * [--ruleset standard|royale|wrapped|constrictor] [--timeout MS] [--opponent-timeout MS]
+ * [--max-turns T] [--threads N] [--seed S]
+ *
+ * Every seat runs the same code, so seat 0 only differs through its time
+ * budget: give the opponents a different --opponent-timeout to measure what
+ * search time is worth. The search keeps SEARCH_MARGIN_MS of every timeout
+ * in reserve, so short timeouts need a smaller margin. Every move is
+ * searched: the games skip the admission limit live requests go through, and
+ * --threads (by default MAX_DECISIONS) caps how many search at once.
+ *
+ * Food spawns like the standard ruleset (at least one piece, otherwise a 15%
+ * chance per turn); royale additionally covers one more edge row or column in
+ * hazard every ROYALE_SHRINK_TURNS turns. Wrapped boards join opposite
+ * edges, and constrictor games have no food since every snake grows each turn.
+ */
+public class Tournament {
+    static final int FOOD_SPAWN_PERCENT = 15;
+    static final int MINIMUM_FOOD = 1;
+    static final int ROYALE_SHRINK_TURNS = 25;
+    static final int START_LENGTH = 3;
+
+    static final List<String> RULESETS = Arrays.asList("standard", "royale", "wrapped", "constrictor");
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    // games bound their own concurrency through the pool size, so moves never queue for a live search slot
+    private final Snake.Handler handler = new Snake.Handler(false);
+    private final int width;
+    private final int height;
+    private final int snakes;
+    private final String ruleset;
+    private final int timeout;
+    private final int opponentTimeout;
+    private final int maxTurns;
+
+    public Tournament(int width, int height, int snakes, String ruleset, int timeout, int opponentTimeout, int maxTurns) {
+        if (!RULESETS.contains(ruleset)) {
+            throw new IllegalArgumentException("Unknown ruleset " + ruleset + ", expected one of " + RULESETS);
+        }
+        if (snakes < 1 || snakes * 4 > width * height) {
+            throw new IllegalArgumentException(snakes + " snakes do not fit on a " + width + "x" + height + " board");
+        }
+        this.width = width;
+        this.height = height;
+        this.snakes = snakes;
+        this.ruleset = ruleset;
+        this.timeout = timeout;
+        this.opponentTimeout = opponentTimeout;
+        this.maxTurns = maxTurns;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = 100;
+        int snakes = 4;
+        int width = 11;
+        int height = 11;
+        String ruleset = "standard";
+        int timeout = 500;
+        int opponentTimeout = -1;
+        int maxTurns = 1000;
+        int threads = Snake.Handler.MAX_DECISIONS;
+        long seed = System.nanoTime();
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--games": games = Integer.parseInt(value); break;
+                case "--snakes": snakes = Integer.parseInt(value); break;
+                case "--width": width = Integer.parseInt(value); break;
+                case "--height": height = Integer.parseInt(value); break;
+                case "--ruleset": ruleset = value; break;
+                case "--timeout": timeout = Integer.parseInt(value); break;
+                case "--opponent-timeout": opponentTimeout = Integer.parseInt(value); break;
+                case "--max-turns": maxTurns = Integer.parseInt(value); break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+            i++;
+        }
+
+        Tournament tournament = new Tournament(width, height, snakes, ruleset, timeout,
+                opponentTimeout < 0 ? timeout : opponentTimeout, maxTurns);
+        Report report = tournament.run(games, threads, seed);
+        report.print(System.out);
+        System.exit(0);
+    }
+
+    /**
+     * Plays the games spread over a pool of threads, one game per task.
+     */
+    public Report run(int games, int threads, long seed) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        long startNanos = System.nanoTime();
+        try {
+            List<Future<Report>> results = new ArrayList<>();
+            for (int game = 0; game < games; game++) {
+                long gameSeed = seed + game;
+                String gameId = "tournament-" + seed + "-" + game;
+                results.add(pool.submit(() -> play(gameId, new Random(gameSeed))));
+            }
+            Report total = new Report(snakes);
+            for (Future<Report> result : results) {
+                total.add(result.get());
+            }
+            total.nanos = System.nanoTime() - startNanos;
+            return total;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays one game to the end.
+     */
+    public Report play(String gameId, Random random) {
+        Report report = new Report(snakes);
+        report.games = 1;
+        Simulator simulator = new Simulator(width, height);
+        GameState view = new GameState();
+        BitBoard food = new BitBoard(width, height);
+        BitBoard hazards = new BitBoard(width, height);
+
+        // heads on distinct random cells with the whole body stacked under them, like the official start
+        int[] starts = new int[snakes];
+        for (int s = 0; s < snakes; s++) {
+            starts[s] = freeCell(random, starts, s, food);
+        }
+        for (int s = 0; s < snakes && !ruleset.equals("constrictor"); s++) {
+            food.set(freeCell(random, starts, snakes, food));
+        }
+        simulator.load(new Board(start(view, gameId, starts, food)));
+
+        int[] moves = new int[snakes];
+        int turn = 0;
+        int alive = snakes;
+        while (alive > (snakes > 1 ? 1 : 0) && turn < maxTurns) {
+            for (int s = 0; s < snakes; s++) {
+                if (!simulator.isAlive(s)) {
+                    continue;
+                }
+                view(view, simulator, gameId, turn, s, s == 0 ? timeout : opponentTimeout, food, hazards);
+                long decisionStart = System.nanoTime();
+                Map<String, String> response = handler.move(view);
+                report.addDecision(System.nanoTime() - decisionStart);
+                moves[s] = Arrays.asList(MoveSearch.MOVES).indexOf(response.get("move"));
+            }
+            simulator.step(moves);
+            simulator.clearHistory();
+            turn++;
+
+            for (int cell = 0; cell < width * height; cell++) {
+                if (food.get(cell) && !simulator.isFood(cell)) {
+                    food.clear(cell);
+                }
+            }
+            if (!ruleset.equals("constrictor")) {
+                spawnFood(random, simulator, food);
+            }
+            if (ruleset.equals("royale") && turn % ROYALE_SHRINK_TURNS == 0) {
+                shrink(turn / ROYALE_SHRINK_TURNS, random, hazards);
+            }
+            simulator.setFood(food);
+            simulator.setHazards(hazards);
+            alive = simulator.getAliveCount();
+        }
+
+        report.turns = turn;
+        for (int s = 0; s < snakes; s++) {
+            if (simulator.isAlive(s) && alive == 1) {
+                report.wins[s]++;
+            }
+            ObjectNode end = JSON_MAPPER.createObjectNode();
+            end.putObject("game").put("id", gameId + "/" + s);
+            handler.end(end);
+        }
+        if (alive != 1) {
+            report.draws++;
+        }
+        return report;
+    }
+
+    private int freeCell(Random random, int[] taken, int takenCount, BitBoard food) {
+        while (true) {
+            int cell = random.nextInt(width * height);
+            boolean free = !food.get(cell);
+            for (int i = 0; i < takenCount && free; i++) {
+                free = taken[i] != cell;
+            }
+            if (free) {
+                return cell;
+            }
+        }
+    }
+
+    private GameState start(GameState view, String gameId, int[] starts, BitBoard food) {
+        view.reset();
+        view.gameId = gameId;
+        view.ruleset = ruleset;
+        view.width = width;
+        view.height = height;
+        for (int s = 0; s < snakes; s++) {
+            int slot = view.addSnake();
+            view.snakeIds[slot] = "snake-" + s;
+            view.snakeNames[slot] = "snake-" + s;
+            view.health[slot] = 100;
+            view.length[slot] = START_LENGTH;
+            view.bodies[slot] = GameState.grow(view.bodies[slot], START_LENGTH);
+            Arrays.fill(view.bodies[slot], 0, START_LENGTH, GameState.pack(starts[s] % width, starts[s] / width));
+        }
+        fillCells(view, food, null);
+        view.youId = "snake-0";
+        view.resolveYou();
+        return view;
+    }
+
+    // The request snake s would be sent this turn. Each seat gets its own game id so sessions stay apart
+    private void view(GameState view, Simulator simulator, String gameId, int turn, int you, int timeout,
+                      BitBoard food, BitBoard hazards) {
+        view.reset();
+        view.gameId = gameId + "/" + you;
+        view.ruleset = ruleset;
+        view.timeout = timeout;
+        view.turn = turn;
+        view.width = width;
+        view.height = height;
+        for (int s = 0; s < simulator.getSnakeCount(); s++) {
+            if (!simulator.isAlive(s)) {
+                continue;
+            }
+            int slot = view.addSnake();
+            int length = simulator.getLength(s);
+            view.snakeIds[slot] = "snake-" + s;
+            view.snakeNames[slot] = "snake-" + s;
+            view.health[slot] = simulator.getHealth(s);
+            view.length[slot] = length;
+            while (view.bodies[slot].length < length) {
+                view.bodies[slot] = GameState.grow(view.bodies[slot], view.bodies[slot].length);
+            }
+            for (int i = 0; i < length; i++) {
+                int cell = simulator.getBody(s, i);
+                view.bodies[slot][i] = GameState.pack(cell % width, cell / width);
+            }
+        }
+        fillCells(view, food, hazards);
+        view.youId = "snake-" + you;
+        view.resolveYou();
+    }
+
+    private void fillCells(GameState view, BitBoard food, BitBoard hazards) {
+        for (int cell = 0; cell < width * height; cell++) {
+            int packed = GameState.pack(cell % width, cell / width);
+            if (food.get(cell)) {
+                view.food = GameState.grow(view.food, view.foodCount);
+                view.food[view.foodCount++] = packed;
+            }
+            if (hazards != null && hazards.get(cell)) {
+                view.hazards = GameState.grow(view.hazards, view.hazardCount);
+                view.hazards[view.hazardCount++] = packed;
+            }
+        }
+    }
+
+    private void spawnFood(Random random, Simulator simulator, BitBoard food) {
+        int wanted = food.cardinality() < MINIMUM_FOOD ? MINIMUM_FOOD - food.cardinality()
+                : random.nextInt(100) < FOOD_SPAWN_PERCENT ? 1 : 0;
+        // pick among the empty cells, there may be none left
+        int empty = 0;
+        for (int cell = 0; cell < width * height; cell++) {
+            if (simulator.getOccupancy(cell) == 0 && !food.get(cell)) {
+                empty++;
+            }
+        }
+        for (; wanted > 0 && empty > 0; wanted--, empty--) {
+            int pick = random.nextInt(empty);
+            for (int cell = 0; cell < width * height; cell++) {
+                if (simulator.getOccupancy(cell) == 0 && !food.get(cell) && pick-- == 0) {
+                    food.set(cell);
+                    break;
+                }
+            }
+        }
+    }
+
+    // Covers the given ring-th row or column from a random edge
+    private void shrink(int ring, Random random, BitBoard hazards) {
+        int side = random.nextInt(4);
+        for (int i = 0; i < Math.max(width, height); i++) {
+            int x = side == Simulator.LEFT ? ring - 1 : side == Simulator.RIGHT ? width - ring : i;
+            int y = side == Simulator.DOWN ? ring - 1 : side == Simulator.UP ? height - ring : i;
+            if (x >= 0 && y >= 0 && x < width && y < height) {
+                hazards.set(y * width + x);
+            }
+        }
+    }
+
+    /**
+     * Results of one or more games.
+     */
+    public static class Report {
+        int games;
+        int turns;
+        int draws;
+        final int[] wins;
+        long nanos;
+        private int decisions;
+        private long decisionNanos;
+        private long[] latencies = new long[256];
+
+        Report(int snakes) {
+            this.wins = new int[snakes];
+        }
+
+        void addDecision(long nanos) {
+            if (decisions == latencies.length) {
+                latencies = Arrays.copyOf(latencies, decisions * 2);
+            }
+            latencies[decisions++] = nanos;
+            decisionNanos += nanos;
+        }
+
+        void add(Report other) {
+            games += other.games;
+            turns += other.turns;
+            draws += other.draws;
+            for (int s = 0; s < wins.length; s++) {
+                wins[s] += other.wins[s];
+            }
+            for (int i = 0; i < other.decisions; i++) {
+                addDecision(other.latencies[i]);
+            }
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getDraws() {
+            return draws;
+        }
+
+        public int getWins(int seat) {
+            return wins[seat];
+        }
+
+        public int getDecisions() {
+            return decisions;
+        }
+
+        public double getMeanMillis() {
+            return decisions == 0 ? 0 : decisionNanos / 1e6 / decisions;
+        }
+
+        public double getP99Millis() {
+            if (decisions == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, decisions);
+            Arrays.sort(sorted);
+            return sorted[decisions * 99 / 100] / 1e6;
+        }
+
+        void print(PrintStream out) {
+            out.printf("%d games, %d turns, %.1f games/s%n", games, turns, games / (nanos / 1e9));
+            for (int s = 0; s < wins.length; s++) {
+                out.printf("seat %d win rate %.1f%%%n", s, 100.0 * wins[s] / games);
+            }
+            out.printf("draws %.1f%%%n", 100.0 * draws / games);
+            out.printf("%d decisions, mean %.2f ms, p99 %.2f ms%n", decisions, getMeanMillis(), getP99Millis());
+        }
+    }
+}
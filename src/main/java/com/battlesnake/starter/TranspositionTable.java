@@ -0,0 +1,83 @@
+package com.battlesnake.starter;
+
+/**
+ * Fixed size, lock-free cache of search results keyed by Zobrist hash.
+ *
+ * Each slot is two longs: the packed entry and the key XORed with it. A reader
+ * accepts a slot only if un-XORing gives back its key, so a slot torn by two
+ * threads writing at once just reads as a miss. Deeper results win a slot over
+ * shallower ones, and anything stored under another generation (the game turn
+ * it was searched on) can be overwritten.
+ *
+ * Entry layout: score (32 bits) | depth (8) | flag (2) | move (3) | generation (8).
+ */
+public class TranspositionTable {
+    public static final long MISS = 0L;
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int NO_MOVE = 4;
+
+    // Megabytes of table per process, rounded down to a power of two slot count
+    public static final int DEFAULT_MB = Integer.getInteger("TT_MB", 32);
+
+    private final long[] keys;
+    private final long[] entries;
+    private final int mask;
+
+    public TranspositionTable(int megabytes) {
+        long slots = Math.max(1024L, (long) megabytes * 1024 * 1024 / 16);
+        int size = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+        this.keys = new long[size];
+        this.entries = new long[size];
+        this.mask = size - 1;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+
+    // Returns the packed entry for key, or MISS
+    public long probe(long key) {
+        int slot = (int) key & mask;
+        long entry = entries[slot];
+        if (entry != MISS && (keys[slot] ^ entry) == key) {
+            return entry;
+        }
+        return MISS;
+    }
+
+    public void store(long key, int score, int depth, int flag, int move, int generation) {
+        int slot = (int) key & mask;
+        long existing = entries[slot];
+        if (existing != MISS && generation(existing) == (generation & 0xFF) && depth(existing) > depth) {
+            return;
+        }
+        long entry = (score & 0xFFFFFFFFL)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) (flag & 0x3) << 40)
+                | ((long) (move & 0x7) << 42)
+                | ((long) (generation & 0xFF) << 48);
+        entries[slot] = entry;
+        keys[slot] = key ^ entry;
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int flag(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry >>> 42) & 0x7;
+    }
+
+    public static int generation(long entry) {
+        return (int) (entry >>> 48) & 0xFF;
+    }
+}
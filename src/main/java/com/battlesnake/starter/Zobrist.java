@@ -0,0 +1,122 @@
+package com.battlesnake.starter;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zobrist keys for one board size.
+ *
+ * Every feature of a position (a body segment on a cell, a head, a tail, a
+ * piece of food, a health value) has a fixed random 64 bit key, and a position
+ * hashes to the XOR of its features. Moving a snake then only XORs the keys of
+ * the cells that changed. Tables are built once per size and shared.
+ */
+public class Zobrist {
+    private static final ConcurrentHashMap<Long, Zobrist> SIZES = new ConcurrentHashMap<>();
+
+    private final int cells;
+    private final long[] body;
+    private final long[] head;
+    private final long[] tail;
+    private final long[] food;
+    private final long[] hazard;
+    private final long[] health = new long[101];
+
+    private Zobrist(int width, int height) {
+        this.cells = width * height;
+        this.body = new long[cells];
+        this.head = new long[cells];
+        this.tail = new long[cells];
+        this.food = new long[cells];
+        this.hazard = new long[cells];
+        // fixed seed per size, so hashes are stable across restarts
+        long seed = ((long) width << 32) | height;
+        for (int i = 0; i < cells; i++) {
+            body[i] = mix(seed += 0x9E3779B97F4A7C15L);
+            head[i] = mix(seed += 0x9E3779B97F4A7C15L);
+            tail[i] = mix(seed += 0x9E3779B97F4A7C15L);
+            food[i] = mix(seed += 0x9E3779B97F4A7C15L);
+            hazard[i] = mix(seed += 0x9E3779B97F4A7C15L);
+        }
+        for (int i = 0; i < health.length; i++) {
+            health[i] = mix(seed += 0x9E3779B97F4A7C15L);
+        }
+    }
+
+    public static Zobrist forSize(int width, int height) {
+        return SIZES.computeIfAbsent(((long) width << 32) | height, size -> new Zobrist(width, height));
+    }
+
+    // SplitMix64 finaliser
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long body(int cell) {
+        return body[cell];
+    }
+
+    public long head(int cell) {
+        return head[cell];
+    }
+
+    public long tail(int cell) {
+        return tail[cell];
+    }
+
+    public long food(int cell) {
+        return food[cell];
+    }
+
+    public long health(int value) {
+        return health[Math.max(0, Math.min(100, value))];
+    }
+
+    public long length(int value) {
+        return mix(0x5851F42D4C957F2DL + value);
+    }
+
+    public long ply(int value) {
+        return mix(0x14057B7EF767814FL + value);
+    }
+
+    /**
+     * Hashes a whole board: every snake's body, head, tail and health, plus food
+     * and hazards. Snakes are combined by addition so identical snakes listed
+     * twice do not cancel out.
+     */
+    public long hash(Board board) {
+        long hash = 0;
+        for (int i = 0; i < board.getSnakeCount(); i++) {
+            hash += hash(board.getSnake(i));
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (board.getFoodMask().get(cell)) {
+                hash ^= food[cell];
+            }
+            if (board.getHazards().get(cell)) {
+                hash ^= hazard[cell];
+            }
+        }
+        return hash;
+    }
+
+    public long hash(BattleSnake snake) {
+        int length = snake.getLength();
+        long hash = health(snake.getHealth()) ^ length(length);
+        for (int i = 0; i < length; i++) {
+            int cell = snake.getCell(i);
+            if (cell >= 0) {
+                hash ^= body[cell];
+                if (i == 0) {
+                    hash ^= head[cell];
+                }
+                if (i == length - 1) {
+                    hash ^= tail[cell];
+                }
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,47 @@
+package com.battlesnake.starter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AreaEvaluatorTest {
+
+    @Test
+    void floodFillPocketTest() {
+        AreaEvaluator area = new AreaEvaluator(5, 5);
+        int[] walls = new int[25];
+        // wall off the bottom left 2x2 pocket
+        walls[2] = 1;
+        walls[7] = 1;
+        walls[10] = 1;
+        walls[11] = 1;
+
+        assertEquals(3, area.floodFill(0, 100, 0, null, walls));
+        assertEquals(24 - 4 - 4, area.floodFill(24, 100, 0, null, walls));
+        assertEquals(2, area.floodFill(24, 2, 0, null, walls));
+    }
+
+    @Test
+    void floodFillWaitsForShrinkingBodiesTest() {
+        AreaEvaluator area = new AreaEvaluator(3, 1);
+        int[] through = new int[3];
+        // the middle cell is covered for one more turn, then the tail leaves it
+        through[1] = 1;
+
+        assertEquals(0, area.floodFill(0, 100, 0, through, null));
+        assertEquals(2, area.floodFill(0, 100, 1, through, null));
+    }
+
+    @Test
+    void voronoiSplitTest() {
+        AreaEvaluator area = new AreaEvaluator(5, 1);
+        int[] heads = {0, 4};
+
+        // cell 2 is equally far from both heads
+        assertEquals(1, area.voronoi(heads, 2, 0, null, null));
+        heads[1] = 3;
+        assertEquals(1, area.voronoi(heads, 2, 0, null, null));
+        heads[0] = 1;
+        assertEquals(1, area.voronoi(heads, 2, 0, null, null));
+    }
+}
@@ -0,0 +1,53 @@
+package com.battlesnake.starter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BitBoardTest {
+
+    @Test
+    void setAndGetTest() {
+        BitBoard board = new BitBoard(11, 11);
+        board.set(10, 10);
+        board.set(-1, 3);
+        board.set(3, 11);
+
+        assertTrue(board.get(10, 10));
+        assertFalse(board.get(-1, 3));
+        assertFalse(board.get(3, 11));
+        assertEquals(1, board.cardinality());
+    }
+
+    @Test
+    void expandDoesNotWrapRowsTest() {
+        BitBoard board = new BitBoard(11, 11);
+        BitBoard expanded = new BitBoard(11, 11);
+        board.set(10, 5);
+        board.expand(null, expanded);
+
+        assertEquals(4, expanded.cardinality());
+        assertTrue(expanded.get(9, 5));
+        assertTrue(expanded.get(10, 4));
+        assertTrue(expanded.get(10, 6));
+        assertFalse(expanded.get(0, 6));
+    }
+
+    @Test
+    void expandAcrossWordsTest() {
+        BitBoard board = new BitBoard(25, 25);
+        BitBoard blocked = new BitBoard(25, 25);
+        BitBoard expanded = new BitBoard(25, 25);
+        board.set(12, 12);
+        blocked.set(12, 13);
+        board.expand(blocked, expanded);
+
+        assertEquals(4, expanded.cardinality());
+        assertTrue(expanded.get(12, 11));
+        assertTrue(expanded.get(11, 12));
+        assertTrue(expanded.get(13, 12));
+        assertFalse(expanded.get(12, 13));
+    }
+}
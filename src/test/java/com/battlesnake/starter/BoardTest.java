@@ -0,0 +1,127 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoardTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // 19x19 with 8 snakes in a row along y = 9, ours is snake-3 and every snake has the same name
+    private static String royale() {
+        StringBuilder snakes = new StringBuilder();
+        for (int s = 0; s < 8; s++) {
+            int x = 1 + 2 * s;
+            snakes.append(s == 0 ? "" : ",").append("{\"id\":\"snake-").append(s).append("\",\"name\":\"Manish\",\"health\":90,")
+                    .append("\"body\":[{\"x\":").append(x).append(",\"y\":9},{\"x\":").append(x).append(",\"y\":8},{\"x\":")
+                    .append(x).append(",\"y\":7}],\"length\":3}");
+        }
+        String you = "{\"id\":\"snake-3\",\"name\":\"Manish\",\"health\":90,"
+                + "\"body\":[{\"x\":7,\"y\":9},{\"x\":7,\"y\":8},{\"x\":7,\"y\":7}],\"length\":3}";
+        return "{\"game\":{\"id\":\"royale\",\"timeout\":500},\"turn\":3,\"board\":{\"height\":19,\"width\":19,"
+                + "\"food\":[],\"hazards\":[],\"snakes\":[" + snakes + "]},\"you\":" + you + "}";
+    }
+
+    @Test
+    void holdsEverySnakeTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(royale()));
+
+        assertEquals(8, board.getSnakeCount());
+        assertEquals(7, board.getOpponentCount());
+        assertSame(board.getYou(), board.getSnake(3));
+        for (int o = 0; o < board.getOpponentCount(); o++) {
+            assertNotEquals("snake-3", board.getOpponent(o).getId());
+        }
+        assertFalse(board.getPreoccupied().get(7, 10));
+        assertTrue(board.getPreoccupied().get(15, 10));
+    }
+
+    @Test
+    void boundsFollowBoardSizeTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(royale()));
+
+        assertTrue(board.isSafe(18, 18));
+        assertFalse(board.isSafe(19, 18));
+        assertFalse(board.isSafe(0, -1));
+    }
+
+    @Test
+    void rulesetTopologyTest() throws IOException {
+        Board standard = new Board(OBJECT_MAPPER.readTree(SnakeTest.MOVE_REQUEST));
+        Board wrapped = new Board(OBJECT_MAPPER.readTree(SimulatorTest.ruleset("wrapped")));
+        Board constrictor = new Board(MoveRequestParser.parse(SimulatorTest.ruleset("constrictor").getBytes(StandardCharsets.UTF_8)));
+
+        // our head is in the corner, left leaves the board unless the edges wrap
+        assertFalse(standard.isSafe(standard.getYou(), Simulator.LEFT));
+        assertTrue(wrapped.isSafe(wrapped.getYou(), Simulator.LEFT));
+        assertTrue(wrapped.getPreoccupied().get(5, 5));
+
+        // tails only move out of the way when snakes do not grow every turn
+        assertFalse(standard.getOccupied().get(2, 0));
+        assertTrue(constrictor.getOccupied().get(2, 0));
+        assertTrue(constrictor.getOccupied().get(6, 2));
+    }
+
+    @Test
+    void parsedBoardMatchesTest() throws IOException {
+        Board expected = new Board(OBJECT_MAPPER.readTree(royale()));
+        Board actual = new Board(MoveRequestParser.parse(royale().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(expected.getOpponentCount(), actual.getOpponentCount());
+        assertEquals(expected.getOccupied(), actual.getOccupied());
+        assertEquals(expected.getPreoccupied(), actual.getPreoccupied());
+        assertEquals(expected.getYou().getId(), actual.getYou().getId());
+    }
+
+    @Test
+    void sharesPointsTest() throws IOException {
+        Board first = new Board(OBJECT_MAPPER.readTree(SnakeTest.MOVE_REQUEST));
+        Board second = new Board(MoveRequestParser.parse(SnakeTest.MOVE_REQUEST.getBytes(StandardCharsets.UTF_8)));
+
+        assertSame(first.getYou().getHead(), second.getYou().getHead());
+        assertSame(Point.of(-1, 3), Point.of(-1, 3));
+        assertEquals(first.getFoodCount(), second.getFoodCount());
+        assertEquals(first.getFood().get(0).getLocation(),
+                Point.of(GameState.unpackX(second.getFood(0)), GameState.unpackY(second.getFood(0))));
+        assertEquals(first.getYou().getBody().size(), first.getYou().getLength());
+        assertEquals(first.getYou().getCell(0), first.getYou().getHead().getY() * 11 + first.getYou().getHead().getX());
+    }
+
+    @Test
+    void bothPathsAgreeOnYouAndLengthTest() throws IOException {
+        // "length" disagrees with the three body segments, and "you" is left out
+        String snake = "{\"id\":\"a\",\"health\":90,\"body\":[{\"x\":1,\"y\":1},{\"x\":1,\"y\":2},{\"x\":1,\"y\":3}],\"length\":5}";
+        String request = "{\"game\":{\"id\":\"g\"},\"turn\":1,\"board\":{\"height\":11,\"width\":11,"
+                + "\"food\":[],\"hazards\":[],\"snakes\":[" + snake + "]}";
+        String withYou = request + ",\"you\":" + snake + "}";
+
+        assertEquals(3, new Board(OBJECT_MAPPER.readTree(withYou)).getYou().getLength());
+        assertEquals(3, new Board(MoveRequestParser.parse(withYou.getBytes(StandardCharsets.UTF_8))).getYou().getLength());
+        assertThrows(IllegalArgumentException.class, () -> new Board(OBJECT_MAPPER.readTree(request + "}")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Board(MoveRequestParser.parse((request + "}").getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void matchesYouByBodyWithoutIdsTest() throws IOException {
+        String request = royale().replaceAll("\"id\":\"snake-[0-9]\",", "");
+        Board expected = new Board(OBJECT_MAPPER.readTree(request));
+        Board actual = new Board(MoveRequestParser.parse(request.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(8, expected.getSnakeCount());
+        assertEquals(8, actual.getSnakeCount());
+        assertSame(actual.getYou(), actual.getSnake(3));
+        assertEquals(expected.getOccupied(), actual.getOccupied());
+        assertEquals(expected.getPreoccupied(), actual.getPreoccupied());
+    }
+}
@@ -0,0 +1,71 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EvaluationTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // SnakeTest.MOVE_REQUEST under another ruleset, with the given ruleset settings
+    private static String request(String ruleset, String settings) {
+        return SnakeTest.MOVE_REQUEST.replace("{\"name\":\"standard\",\"version\":\"v.1.2.3\"}",
+                "{\"name\":\"" + ruleset + "\",\"version\":\"v.1.2.3\",\"settings\":" + settings + "}");
+    }
+
+    private static Board board(String ruleset) throws IOException {
+        return new Board(OBJECT_MAPPER.readTree(request(ruleset, "{}")));
+    }
+
+    @Test
+    void standardKeepsLeafWeightsTest() throws IOException {
+        // our snake is three long, so it goes for food instead of its tail
+        Evaluation evaluation = Evaluation.forBoard(board("standard"));
+
+        assertTrue(evaluation.isHungry());
+        assertArrayEquals(new int[]{Evaluation.HEALTH, Evaluation.ROOM, Evaluation.FOOD, Evaluation.LENGTH},
+                evaluation.leafStages());
+        assertArrayEquals(new int[]{1, 1, 10, 1000}, evaluation.leafWeights());
+        assertEquals(MoveSearch.TERRITORY_WEIGHT, evaluation.weight(Evaluation.AREA));
+        assertSame(evaluation, Evaluation.forBoard(board("standard")));
+    }
+
+    @Test
+    void royaleWeighsHazardsTest() throws IOException {
+        Evaluation evaluation = Evaluation.forBoard(board("royale"));
+
+        assertEquals(50, evaluation.weight(Evaluation.HAZARD));
+        assertEquals(Evaluation.HAZARD, evaluation.leafStages()[evaluation.leafStages().length - 1]);
+        assertNotEquals(evaluation.key(), Evaluation.forBoard(board("standard")).key());
+    }
+
+    @Test
+    void constrictorIsNeverHungryTest() throws IOException {
+        Evaluation evaluation = Evaluation.forBoard(board("constrictor"));
+
+        assertFalse(evaluation.isHungry());
+        assertArrayEquals(new int[]{Evaluation.ROOM}, evaluation.leafStages());
+        assertEquals(0, evaluation.upperBound(3, 10));
+    }
+
+    @Test
+    void readsHazardDamageTest() throws IOException {
+        String json = request("royale", "{\"hazardDamagePerTurn\":30}");
+        Board tree = new Board(OBJECT_MAPPER.readTree(json));
+        Board parsed = new Board(MoveRequestParser.parse(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(30, tree.getHazardDamage());
+        assertEquals(30, parsed.getHazardDamage());
+        assertEquals(MoveSearch.HAZARD_DAMAGE, board("royale").getHazardDamage());
+    }
+}
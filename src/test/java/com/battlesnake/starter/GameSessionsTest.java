@@ -0,0 +1,84 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class GameSessionsTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // SnakeTest.MOVE_REQUEST one turn later: we went up, the opponent went up onto food, and food spawned at (8,8)
+    private static final String NEXT_TURN = "{\"game\":{\"id\":\"game-00fe20da-94ad-11ea-bb37\",\"timeout\":500},\"turn\":15,"
+            + "\"board\":{\"height\":11,\"width\":11,\"food\":[{\"x\":9,\"y\":0},{\"x\":2,\"y\":6},{\"x\":8,\"y\":8}],\"hazards\":[{\"x\":3,\"y\":2}],\"snakes\":["
+            + "{\"id\":\"snake-508e96ac-94ad-11ea-bb37\",\"name\":\"My Snake\",\"health\":53,\"body\":[{\"x\":0,\"y\":1},{\"x\":0,\"y\":0},{\"x\":1,\"y\":0}],\"length\":3},"
+            + "{\"id\":\"snake-b67f4906-94ae-11ea-bb37\",\"name\":\"Another Snake\",\"health\":100,\"body\":[{\"x\":5,\"y\":5},{\"x\":5,\"y\":4},{\"x\":5,\"y\":3},{\"x\":6,\"y\":3},{\"x\":6,\"y\":3}],\"length\":5}]},"
+            + "\"you\":{\"id\":\"snake-508e96ac-94ad-11ea-bb37\",\"name\":\"My Snake\",\"health\":53,\"body\":[{\"x\":0,\"y\":1},{\"x\":0,\"y\":0},{\"x\":1,\"y\":0}],\"length\":3}}";
+
+    private Board board(String request) throws IOException {
+        return new Board(OBJECT_MAPPER.readTree(request));
+    }
+
+    @Test
+    void learnsMovesFromConsecutiveTurnsTest() throws IOException {
+        GameSession session = new GameSession("game-00fe20da-94ad-11ea-bb37");
+        session.recordTurn(board(SnakeTest.MOVE_REQUEST));
+        session.recordTurn(board(NEXT_TURN));
+
+        assertEquals(1, session.getObservedTurns());
+        assertEquals(Simulator.UP, session.getLastMove(0));
+        assertEquals(Simulator.UP, session.getLastMove(1));
+        assertEquals("snake-b67f4906-94ae-11ea-bb37", session.getSnakeId(1));
+        assertEquals(1, session.getObservations("snake-b67f4906-94ae-11ea-bb37"));
+        assertEquals(0, session.getObservations("snake-508e96ac-94ad-11ea-bb37"));
+    }
+
+    @Test
+    void startsOverWhenTurnsAreSkippedTest() throws IOException {
+        GameSession session = new GameSession("game-00fe20da-94ad-11ea-bb37");
+        session.recordTurn(board(NEXT_TURN));
+        session.recordTurn(board(SnakeTest.MOVE_REQUEST));
+
+        assertEquals(0, session.getObservedTurns());
+        assertEquals(-1, session.getLastMove(0));
+        assertEquals(0, session.getObservations("snake-b67f4906-94ae-11ea-bb37"));
+    }
+
+    @Test
+    void plannedMoveNeedsExpectedHeadTest() {
+        GameSession session = new GameSession("game");
+        session.plan(12, Simulator.LEFT);
+
+        assertEquals(Simulator.LEFT, session.getPlannedMove(12));
+        assertEquals(TranspositionTable.NO_MOVE, session.getPlannedMove(13));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedTest() {
+        GameSessions sessions = new GameSessions(2, Long.MAX_VALUE);
+        GameSession first = sessions.start("a");
+        sessions.start("b");
+        sessions.get("a");
+        sessions.start("c");
+
+        assertEquals(2, sessions.size());
+        assertSame(first, sessions.get("a"));
+        assertEquals(2, sessions.size());
+        sessions.end("a");
+        assertEquals(1, sessions.size());
+    }
+
+    @Test
+    void evictsIdleSessionsTest() {
+        GameSessions sessions = new GameSessions(16, -1);
+        GameSession first = sessions.start("a");
+
+        assertNotSame(first, sessions.get("a"));
+        assertEquals(1, sessions.size());
+    }
+}
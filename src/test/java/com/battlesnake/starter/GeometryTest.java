@@ -0,0 +1,48 @@
+package com.battlesnake.starter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class GeometryTest {
+
+    @Test
+    void neighboursStopAtEdgesTest() {
+        Geometry geometry = Geometry.forSize(11, 11);
+
+        assertEquals(11, geometry.neighbour(0, Simulator.UP));
+        assertEquals(Geometry.OFF_BOARD, geometry.neighbour(0, Simulator.DOWN));
+        assertEquals(Geometry.OFF_BOARD, geometry.neighbour(0, Simulator.LEFT));
+        assertEquals(1, geometry.neighbour(0, Simulator.RIGHT));
+        assertEquals(Geometry.OFF_BOARD, geometry.neighbour(120, Simulator.UP));
+    }
+
+    @Test
+    void wrappedNeighboursCrossEdgesTest() {
+        Geometry geometry = Geometry.forSize(11, 11, true);
+
+        assertEquals(110, geometry.neighbour(0, Simulator.DOWN));
+        assertEquals(10, geometry.neighbour(0, Simulator.LEFT));
+        assertEquals(10, geometry.neighbour(120, Simulator.UP));
+        assertEquals(110, geometry.neighbour(120, Simulator.RIGHT));
+    }
+
+    @Test
+    void distancesTest() {
+        Geometry bounded = Geometry.forSize(11, 11);
+        Geometry wrapped = Geometry.forSize(11, 11, true);
+
+        assertEquals(20, bounded.distance(0, 120));
+        assertEquals(2, wrapped.distance(0, 120));
+        assertEquals(5, bounded.distance(3 * 11 + 2, 5 * 11 + 5));
+        // too big for a full table, computed on the fly
+        Geometry large = Geometry.forSize(50, 50);
+        assertEquals(98, large.distance(0, 2499));
+    }
+
+    @Test
+    void sharedPerSizeTest() {
+        assertSame(Geometry.forSize(19, 19), Geometry.forSize(19, 19));
+    }
+}
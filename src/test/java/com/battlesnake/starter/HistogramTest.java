@@ -0,0 +1,38 @@
+package com.battlesnake.starter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramTest {
+
+    @Test
+    void cumulativeBucketsTest() {
+        Histogram histogram = new Histogram("test_seconds", "route=\"/move\"", 0.1, 0.5);
+        histogram.record(0.05);
+        histogram.record(0.1);
+        histogram.record(0.3);
+        histogram.record(2);
+
+        StringBuilder out = new StringBuilder();
+        histogram.writeTo(out);
+        String text = out.toString();
+
+        assertTrue(text.contains("test_seconds_bucket{route=\"/move\",le=\"0.1\"} 2\n"));
+        assertTrue(text.contains("test_seconds_bucket{route=\"/move\",le=\"0.5\"} 3\n"));
+        assertTrue(text.contains("test_seconds_bucket{route=\"/move\",le=\"+Inf\"} 4\n"));
+        assertTrue(text.contains("test_seconds_count{route=\"/move\"} 4\n"));
+        assertEquals(2.45, histogram.getSum(), 1e-9);
+    }
+
+    @Test
+    void scrapeAfterMoveTest() throws Exception {
+        new Snake.Handler().move(MoveRequestParser.parse(SnakeTest.MOVE_REQUEST));
+
+        String text = Metrics.scrape();
+        assertTrue(text.contains("# TYPE snake_decision_seconds histogram\n"));
+        assertTrue(Metrics.DEPTH.getCount() > 0);
+        assertTrue(Metrics.HEADROOM_SECONDS.getCount() > 0);
+    }
+}
@@ -0,0 +1,68 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MonteCarloSearchTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static long inMillis(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    void onlySafeMoveTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(SnakeTest.MOVE_REQUEST));
+        MonteCarloSearch search = new MonteCarloSearch(board, null);
+
+        assertEquals("up", MoveSearch.MOVES[search.findMove(inMillis(50), 3)]);
+        assertTrue(search.getNodes() > 0);
+    }
+
+    @Test
+    void avoidsLosingHeadToHeadTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(ParanoidSearchTest.HEAD_TO_HEAD));
+        MonteCarloSearch search = new MonteCarloSearch(board, null);
+
+        assertNotEquals("up", MoveSearch.MOVES[search.findMove(inMillis(200), Simulator.UP)]);
+        assertTrue(search.getDepthReached() >= 2);
+    }
+
+    @Test
+    void respectsDeadlineTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(ParanoidSearchTest.HEAD_TO_HEAD));
+        MonteCarloSearch search = new MonteCarloSearch(board, null);
+
+        long start = System.nanoTime();
+        int move = search.findMove(start + TimeUnit.MILLISECONDS.toNanos(20), 0);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsed < 200, "search overran its deadline by " + elapsed + "ms");
+        assertTrue(move >= 0 && move < 4);
+    }
+
+    @Test
+    void concurrentGamesKeepTheirOwnDeadlinesTest() throws Exception {
+        Board board = new Board(OBJECT_MAPPER.readTree(ParanoidSearchTest.HEAD_TO_HEAD));
+        // a long decision takes the pool first, a short one from another game starts right after
+        Thread longGame = new Thread(() -> new MonteCarloSearch(board, null).findMove(inMillis(400), 0));
+        longGame.start();
+        Thread.sleep(20);
+        MonteCarloSearch shortGame = new MonteCarloSearch(board, null);
+        long start = System.nanoTime();
+        shortGame.findMove(start + TimeUnit.MILLISECONDS.toNanos(30), 0);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        longGame.join();
+
+        assertTrue(elapsed < 200, "short game waited " + elapsed + "ms for the long one");
+        assertTrue(shortGame.getNodes() > 0);
+    }
+}
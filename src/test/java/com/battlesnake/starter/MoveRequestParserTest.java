@@ -0,0 +1,111 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+public class MoveRequestParserTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    void parsesGameFieldsTest() throws IOException {
+        GameState game = MoveRequestParser.parse(SnakeTest.MOVE_REQUEST.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("game-00fe20da-94ad-11ea-bb37", game.getGameId());
+        assertEquals("standard", game.getRuleset());
+        assertEquals(500, game.getTimeout());
+        assertEquals(14, game.getTurn());
+        assertEquals(2, game.getSnakeCount());
+        assertEquals(0, game.getYouIndex());
+        assertEquals(3, game.getFoodCount());
+        assertEquals(1, game.getHazardCount());
+        assertEquals(GameState.pack(3, 2), game.getHazard(0));
+    }
+
+    @Test
+    void boardParityTest() throws IOException {
+        JsonNode tree = OBJECT_MAPPER.readTree(SnakeTest.MOVE_REQUEST);
+        Board expected = new Board(tree);
+        Board actual = new Board(MoveRequestParser.parse(SnakeTest.MOVE_REQUEST.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getOccupied(), actual.getOccupied());
+        assertEquals(expected.getPreoccupied(), actual.getPreoccupied());
+        assertEquals(expected.getFoodMask(), actual.getFoodMask());
+        assertEquals(expected.getHazards(), actual.getHazards());
+        assertEquals(expected.getFood().size(), actual.getFood().size());
+        for (int i = 0; i < expected.getFood().size(); i++) {
+            assertEquals(expected.getFood().get(i).getLocation(), actual.getFood().get(i).getLocation());
+        }
+        assertSnakeEquals(expected.getYou(), actual.getYou());
+        assertEquals(expected.getSnakeCount(), actual.getSnakeCount());
+        for (int i = 0; i < expected.getSnakeCount(); i++) {
+            assertSnakeEquals(expected.getSnake(i), actual.getSnake(i));
+        }
+        assertEquals(1, actual.getOpponentCount());
+        assertSnakeEquals(expected.getOpponent(0), actual.getOpponent(0));
+    }
+
+    @Test
+    void searchParityTest() throws IOException {
+        JsonNode tree = OBJECT_MAPPER.readTree(SnakeTest.MOVE_REQUEST);
+        GameState game = MoveRequestParser.parse(SnakeTest.MOVE_REQUEST.getBytes(StandardCharsets.UTF_8));
+
+        // fixed depth so the comparison does not depend on timing
+        int expected = new MoveSearch(new Board(tree)).findMove(Long.MAX_VALUE, 0, 6);
+        int actual = new MoveSearch(new Board(game)).findMove(Long.MAX_VALUE, 0, 6);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void reusesPooledStateTest() throws IOException {
+        byte[] body = SnakeTest.MOVE_REQUEST.getBytes(StandardCharsets.UTF_8);
+        GameState first = MoveRequestParser.parse(body);
+        GameState second = MoveRequestParser.parse(body);
+
+        assertSame(first, second);
+        assertEquals(2, second.getSnakeCount());
+        assertEquals(3, second.getFoodCount());
+    }
+
+    @Test
+    void rejectsMalformedBodiesTest() {
+        String[] bodies = {
+                "{\"board\":{\"food\":null}}",
+                "{\"board\":{\"snakes\":null},\"you\":{}}",
+                "{\"board\":{\"food\":{\"x\":1}}}",
+                "{\"board\":{\"hazards\":[1,2]}}",
+                "{\"board\":{\"snakes\":[{\"body\":7}]}}",
+                "{\"you\":{\"body\":\"up\"}}",
+                "{\"board\":null}",
+        };
+        // each used to spin until the heap ran out
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (String body : bodies) {
+                assertThrows(JsonParseException.class, () -> MoveRequestParser.parse(body.getBytes(StandardCharsets.UTF_8)), body);
+            }
+        });
+    }
+
+    private void assertSnakeEquals(BattleSnake expected, BattleSnake actual) {
+        assertEquals(expected.getHealth(), actual.getHealth());
+        assertEquals(expected.getLength(), actual.getLength());
+        assertEquals(expected.getHead(), actual.getHead());
+        assertEquals(expected.getNeck(), actual.getNeck());
+        assertEquals(expected.getTail(), actual.getTail());
+        assertEquals(expected.getBody(), actual.getBody());
+        assertEquals(expected.getBodyMask(), actual.getBodyMask());
+    }
+}
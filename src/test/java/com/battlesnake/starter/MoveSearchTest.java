@@ -0,0 +1,38 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MoveSearchTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    void onlySafeMoveTest() throws IOException {
+        // head in the bottom left corner with the body to its right, only "up" survives
+        Board board = new Board(OBJECT_MAPPER.readTree(SnakeTest.MOVE_REQUEST));
+        MoveSearch search = new MoveSearch(board);
+
+        assertEquals("up", MoveSearch.MOVES[search.findMove(Long.MAX_VALUE, 3, 4)]);
+    }
+
+    @Test
+    void respectsDeadlineTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(SnakeTest.MOVE_REQUEST));
+        MoveSearch search = new MoveSearch(board);
+
+        long start = System.nanoTime();
+        int move = search.findMove(start + TimeUnit.MILLISECONDS.toNanos(20), 0);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsed < 200, "search overran its deadline by " + elapsed + "ms");
+        assertTrue(move >= 0 && move < 4);
+        assertTrue(search.getDepthReached() >= 1);
+    }
+}
@@ -0,0 +1,88 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OpeningBookTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // 1v1 on 11x11 with every x coordinate mirrored when flip is set
+    private static Board board(boolean flip) throws IOException {
+        int[][] you = {{2, 3}, {2, 2}, {3, 2}};
+        int[][] other = {{7, 8}, {7, 7}, {7, 6}, {8, 6}};
+        String body = body(you, flip);
+        String snakes = "{\"id\":\"a\",\"health\":80,\"body\":" + body + ",\"length\":3},"
+                + "{\"id\":\"b\",\"health\":70,\"body\":" + body(other, flip) + ",\"length\":4}";
+        String food = "[{\"x\":" + (flip ? 10 - 4 : 4) + ",\"y\":5}]";
+        return new Board(OBJECT_MAPPER.readTree("{\"game\":{\"id\":\"book\"},\"turn\":9,\"board\":{\"height\":11,\"width\":11,"
+                + "\"food\":" + food + ",\"hazards\":[],\"snakes\":[" + snakes + "]},"
+                + "\"you\":{\"id\":\"a\",\"health\":80,\"body\":" + body + ",\"length\":3}}"));
+    }
+
+    private static String body(int[][] segments, boolean flip) {
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < segments.length; i++) {
+            int x = flip ? 10 - segments[i][0] : segments[i][0];
+            out.append(i == 0 ? "" : ",").append("{\"x\":").append(x).append(",\"y\":").append(segments[i][1]).append('}');
+        }
+        return out.append(']').toString();
+    }
+
+    @Test
+    void mirroredPositionsShareAnEntryTest() throws IOException {
+        Board board = board(false);
+        Board mirrored = board(true);
+        assertEquals(OpeningBook.key(board), OpeningBook.key(mirrored));
+        assertNotEquals(OpeningBook.key(board), OpeningBook.key(new Board(OBJECT_MAPPER.readTree(SnakeTest.MOVE_REQUEST))));
+
+        File file = Files.createTempFile("book", ".bin").toFile();
+        file.deleteOnExit();
+        OpeningBook.write(file, new long[]{OpeningBook.key(board)}, new int[]{OpeningBook.canonicalMove(board, Simulator.LEFT)}, 1);
+        OpeningBook book = OpeningBook.load(file);
+
+        assertEquals(1, book.size());
+        assertEquals(Simulator.LEFT, book.probe(board));
+        assertEquals(Simulator.RIGHT, book.probe(mirrored));
+        assertEquals(TranspositionTable.NO_MOVE, book.probe(new Board(OBJECT_MAPPER.readTree(SnakeTest.MOVE_REQUEST))));
+        assertEquals(TranspositionTable.NO_MOVE, OpeningBook.EMPTY.probe(board));
+    }
+
+    @Test
+    void movesRoundTripEverySymmetryTest() {
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            for (int move = 0; move < 4; move++) {
+                assertEquals(move, OpeningBook.untransformMove(symmetry, OpeningBook.transformMove(symmetry, move)));
+            }
+        }
+    }
+
+    @Test
+    void buildsOpeningsTest() throws Exception {
+        // away from the centre and out of the corner
+        assertArrayEquals(new int[]{2 * 11, 2}, OpeningBookBuilder.startFood(1, 1));
+        assertArrayEquals(new int[]{4 * 11, 6 * 11}, OpeningBookBuilder.startFood(1, 5));
+
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        builder.addOpenings(2, 0);
+        // 28 spawn pairs with 4 food layouts each, seen from both sides, less the symmetric copies
+        assertTrue(builder.size() > 0 && builder.size() < 28 * 4 * 2);
+
+        File file = Files.createTempFile("book", ".bin").toFile();
+        file.deleteOnExit();
+        OpeningBookBuilder small = new OpeningBookBuilder();
+        small.add(board(false));
+        assertEquals(1, small.write(file, 20, 1));
+        int move = OpeningBook.load(file).probe(board(true));
+        assertTrue(board(true).isSafe(board(true).getYou(), move));
+    }
+}
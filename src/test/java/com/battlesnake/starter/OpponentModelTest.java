@@ -0,0 +1,71 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OpponentModelTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // our snake in a corner, "b" heading up the middle of an empty 11x11 board
+    private static final String OPEN = open(3);
+
+    // the same board after "b" has gone up y - 3 more times
+    private static String open(int y) {
+        return "{\"board\":{\"height\":11,\"width\":11,\"food\":[],\"hazards\":[],\"snakes\":["
+                + "{\"id\":\"a\",\"name\":\"a\",\"health\":90,\"body\":[{\"x\":0,\"y\":0},{\"x\":1,\"y\":0},{\"x\":2,\"y\":0}],\"length\":3},"
+                + "{\"id\":\"b\",\"name\":\"b\",\"health\":90,\"body\":[{\"x\":5,\"y\":" + y + "},{\"x\":5,\"y\":" + (y - 1)
+                + "},{\"x\":5,\"y\":" + (y - 2) + "}],\"length\":3}]},"
+                + "\"you\":{\"id\":\"a\",\"name\":\"a\",\"health\":90,\"body\":[{\"x\":0,\"y\":0},{\"x\":1,\"y\":0},{\"x\":2,\"y\":0}],\"length\":3}}";
+    }
+
+    @Test
+    void uniformUntilObservedTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(OPEN));
+        double[] probabilities = new double[4];
+        new OpponentModel().predict(board, board.getOpponent(0), probabilities);
+
+        // any move but back into the neck
+        assertEquals(1 / 3.0, probabilities[Simulator.UP], 1e-9);
+        assertEquals(0, probabilities[Simulator.DOWN], 1e-9);
+        assertEquals(1 / 3.0, probabilities[Simulator.LEFT], 1e-9);
+        assertEquals(1 / 3.0, probabilities[Simulator.RIGHT], 1e-9);
+    }
+
+    @Test
+    void learnsToGoStraightTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(OPEN));
+        OpponentModel model = new OpponentModel();
+        for (int turn = 0; turn < 5; turn++) {
+            Board before = new Board(OBJECT_MAPPER.readTree(open(3 + turn)));
+            model.observe("b", before, before.getOpponent(0), Simulator.UP);
+        }
+        assertEquals(5, model.getObservations("b"));
+
+        double[] probabilities = new double[4];
+        model.predict(board, board.getOpponent(0), probabilities);
+        assertTrue(probabilities[Simulator.UP] > 0.7);
+        assertTrue(probabilities[Simulator.LEFT] < MoveSearch.UNLIKELY_REPLY);
+        assertEquals(1, probabilities[0] + probabilities[1] + probabilities[2] + probabilities[3], 1e-9);
+    }
+
+    @Test
+    void featuresWrapAroundEdgesTest() {
+        Geometry wrapped = Geometry.forSize(11, 11, true);
+        BitBoard food = new BitBoard(11, 11);
+        food.set(9, 5);
+        // head at (0, 5) with its neck at (1, 5), going left crosses the edge to (10, 5)
+        int head = 5 * 11;
+        int features = OpponentModel.features(wrapped, head, head + 1, Simulator.LEFT, food);
+
+        assertEquals(1 << OpponentModel.STRAIGHT | 1 << OpponentModel.TOWARD_FOOD, features);
+        assertEquals(0, OpponentModel.features(wrapped, head, head + 1, Simulator.UP, food));
+        assertEquals(1 << OpponentModel.TOWARD_CENTER,
+                OpponentModel.features(Geometry.forSize(11, 11), head, head + 1, Simulator.RIGHT, food) & 1 << OpponentModel.TOWARD_CENTER);
+    }
+}
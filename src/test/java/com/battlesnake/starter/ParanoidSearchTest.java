@@ -0,0 +1,56 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ParanoidSearchTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // We are short and heading up at (5,5); a longer opponent's head is two cells above
+    static final String HEAD_TO_HEAD = "{\"game\":{\"id\":\"paranoid\",\"timeout\":500},\"turn\":10,"
+            + "\"board\":{\"height\":11,\"width\":11,\"food\":[],\"hazards\":[],\"snakes\":["
+            + "{\"id\":\"us\",\"name\":\"Us\",\"health\":90,\"body\":[{\"x\":5,\"y\":5},{\"x\":5,\"y\":4},{\"x\":5,\"y\":3}],\"length\":3},"
+            + "{\"id\":\"them\",\"name\":\"Them\",\"health\":90,\"body\":[{\"x\":5,\"y\":7},{\"x\":5,\"y\":8},{\"x\":5,\"y\":9},{\"x\":5,\"y\":10},{\"x\":4,\"y\":10}],\"length\":5}]},"
+            + "\"you\":{\"id\":\"us\",\"name\":\"Us\",\"health\":90,\"body\":[{\"x\":5,\"y\":5},{\"x\":5,\"y\":4},{\"x\":5,\"y\":3}],\"length\":3}}";
+
+    @Test
+    void onlySafeMoveTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(SnakeTest.MOVE_REQUEST));
+        ParanoidSearch search = new ParanoidSearch(board, null);
+
+        assertEquals("up", MoveSearch.MOVES[search.findMove(Long.MAX_VALUE, 3, 4)]);
+    }
+
+    @Test
+    void avoidsLosingHeadToHeadTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(HEAD_TO_HEAD));
+        ParanoidSearch search = new ParanoidSearch(board, null);
+
+        int move = search.findMove(Long.MAX_VALUE, Simulator.UP, 3);
+        assertNotEquals("up", MoveSearch.MOVES[move]);
+        assertEquals(3, search.getDepthReached());
+    }
+
+    @Test
+    void respectsDeadlineTest() throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(HEAD_TO_HEAD));
+        ParanoidSearch search = new ParanoidSearch(board, null);
+
+        long start = System.nanoTime();
+        int move = search.findMove(start + TimeUnit.MILLISECONDS.toNanos(20), 0);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsed < 200, "search overran its deadline by " + elapsed + "ms");
+        assertTrue(move >= 0 && move < 4);
+        assertTrue(search.getDepthReached() >= 1);
+        assertTrue(search.getNodes() > 0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PathFinderTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    // 5x5 with a wall of cells x = 2, y = 0..3 between (0, 0) and (4, 0)
+    private static BitBoard wall() {
+        BitBoard wall = new BitBoard(5, 5);
+        for (int y = 0; y < 4; y++) {
+            wall.set(2, y);
+        }
+        return wall;
+    }
+
+    @Test
+    void nearestGoesAroundBodiesTest() {
+        PathFinder paths = new PathFinder(Geometry.forSize(5, 5));
+        BitBoard targets = new BitBoard(5, 5);
+        targets.set(4, 0);
+        int[] counts = new int[25];
+        for (int y = 0; y < 4; y++) {
+            counts[y * 5 + 2] = 1;
+        }
+
+        // straight-line distance 4, but the way round the wall takes 12
+        assertEquals(12, paths.nearest(0, targets, 0, null, counts));
+        assertEquals(0, paths.nearest(4, targets, 0, null, counts));
+        counts[4 * 5 + 2] = 1;
+        assertEquals(PathFinder.UNREACHABLE, paths.nearest(0, targets, 0, null, counts));
+
+        // a body that has moved on by the time we arrive is no obstacle
+        int[] through = new int[25];
+        through[2] = 1;
+        assertEquals(4, paths.nearest(0, targets, 0, through, null));
+    }
+
+    @Test
+    void moveDistancesInOneSearchTest() {
+        PathFinder paths = new PathFinder(Geometry.forSize(5, 5));
+        int[] distances = new int[4];
+        // from (1, 1) to the far side of the wall at (3, 1)
+        paths.moveDistances(6, new int[]{8}, 1, wall(), distances);
+
+        assertArrayEquals(new int[]{8, 10, 10, PathFinder.UNREACHABLE}, distances);
+        assertEquals(0, paths.distance(8));
+    }
+
+    @Test
+    void chasesAroundBodiesTest() throws IOException {
+        // an opponent lies along y = 6 from x = 6 to 0, the food at (4, 8) is behind it
+        StringBuilder wall = new StringBuilder();
+        for (int x = 6; x >= 0; x--) {
+            wall.append(x == 6 ? "" : ",").append("{\"x\":").append(x).append(",\"y\":6}");
+        }
+        String you = "{\"id\":\"a\",\"health\":10,\"body\":[{\"x\":5,\"y\":5},{\"x\":5,\"y\":4},{\"x\":5,\"y\":3}],\"length\":3}";
+        String request = "{\"game\":{\"id\":\"path\"},\"turn\":4,\"board\":{\"height\":11,\"width\":11,"
+                + "\"food\":[{\"x\":4,\"y\":8}],\"hazards\":[],\"snakes\":[" + you + ","
+                + "{\"id\":\"b\",\"health\":90,\"body\":[" + wall + "],\"length\":7}]},\"you\":" + you + "}";
+        Board board = new Board(OBJECT_MAPPER.readTree(request));
+        Point left = Point.of(4, 5);
+        Point right = Point.of(6, 5);
+
+        // left is closer in a straight line, right is 7 moves around the head instead of 11 around the tail
+        assertSame(right, Snake.Handler.chaseFood(new ArrayList<>(Arrays.asList(left, right)), board));
+        assertSame(left, Snake.Handler.chaseTail(new ArrayList<>(Arrays.asList(left, right)), board));
+        assertEquals(null, Snake.Handler.chaseFood(new ArrayList<>(), board));
+    }
+
+    @Test
+    void sharesPerThreadInstanceTest() {
+        Geometry geometry = Geometry.forSize(7, 7);
+        assertSame(PathFinder.local(geometry), PathFinder.local(geometry));
+    }
+}
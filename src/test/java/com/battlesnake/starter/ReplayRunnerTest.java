@@ -0,0 +1,51 @@
+package com.battlesnake.starter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReplayRunnerTest {
+
+    @Test
+    void replaysRecordedGameTest() throws Exception {
+        File directory = Files.createTempDirectory("replays").toFile();
+        File file = ReplayRecorder.file(directory, "game-00fe20da-94ad-11ea-bb37");
+        byte[] move = SnakeTest.MOVE_REQUEST.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            ReplayRecorder.write(out, "/start", 0, "{}".getBytes(StandardCharsets.UTF_8), null, 1000);
+            // no real move is called this, so the replay has to report a diff
+            ReplayRecorder.write(out, "/move", 14, move, "sideways", 250_000);
+        }
+        // a second gzip member, as written when a file is reopened mid game
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file, true))) {
+            ReplayRecorder.write(out, "/end", 15, "{}".getBytes(StandardCharsets.UTF_8), null, 1000);
+        }
+
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        ReplayRunner.Report report = new ReplayRunner(50, false)
+                .replay(Collections.singletonList(file), 2, new PrintStream(printed, true, "UTF-8"));
+
+        assertEquals(1, report.getGames());
+        assertEquals(1, report.getTurns());
+        assertEquals(1, report.getDiffs());
+        assertTrue(printed.toString("UTF-8").startsWith("DIFF\t" + file.getName() + "\t14\tsideways\t"));
+    }
+
+    @Test
+    void sanitisesGameIdsTest() throws IOException {
+        File directory = Files.createTempDirectory("replays").toFile();
+        assertEquals(new File(directory, ".._etc_passwd.jsonl.gz"), ReplayRecorder.file(directory, "../etc/passwd"));
+    }
+}
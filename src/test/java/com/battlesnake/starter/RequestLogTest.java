@@ -0,0 +1,32 @@
+package com.battlesnake.starter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestLogTest {
+
+    @Test
+    void samplesWholeGamesTest() {
+        int sampled = 0;
+        for (int game = 0; game < 10_000; game++) {
+            String id = "game-" + game;
+            boolean first = RequestLog.isSampled(id);
+            assertEquals(first, RequestLog.isSampled(id));
+            if (first) {
+                sampled++;
+            }
+        }
+        double expected = Math.min(RequestLog.SAMPLE_RATE, 1) * 10_000;
+        assertTrue(Math.abs(sampled - expected) < 500, "sampled " + sampled + " games");
+    }
+
+    @Test
+    void idlessRequestsFollowTheRateTest() {
+        if (RequestLog.SAMPLE_RATE < 1) {
+            assertFalse(RequestLog.isSampled(null));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.battlesnake.starter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SimulatorTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String HEAD_TO_HEAD = "{\"board\":{\"height\":11,\"width\":11,\"food\":[],\"hazards\":[],\"snakes\":["
+            + "{\"id\":\"a\",\"name\":\"a\",\"health\":90,\"body\":[{\"x\":2,\"y\":2},{\"x\":1,\"y\":2},{\"x\":0,\"y\":2}],\"length\":3},"
+            + "{\"id\":\"b\",\"name\":\"b\",\"health\":90,\"body\":[{\"x\":4,\"y\":2},{\"x\":5,\"y\":2},{\"x\":6,\"y\":2},{\"x\":7,\"y\":2}],\"length\":4}]},"
+            + "\"you\":{\"id\":\"a\",\"name\":\"a\",\"health\":90,\"body\":[{\"x\":2,\"y\":2},{\"x\":1,\"y\":2},{\"x\":0,\"y\":2}],\"length\":3}}";
+
+    private Simulator load(String request) throws IOException {
+        Board board = new Board(OBJECT_MAPPER.readTree(request));
+        Simulator simulator = new Simulator(board.getWidth(), board.getHeight());
+        simulator.load(board);
+        return simulator;
+    }
+
+    @Test
+    void feedsAndGrowsTest() throws IOException {
+        Simulator simulator = load(SnakeTest.MOVE_REQUEST);
+        assertEquals(2, simulator.getSnakeCount());
+
+        simulator.step(new int[]{Simulator.UP, Simulator.UP});
+
+        assertEquals(53, simulator.getHealth(0));
+        assertEquals(3, simulator.getLength(0));
+        assertEquals(100, simulator.getHealth(1));
+        assertEquals(5, simulator.getLength(1));
+        assertFalse(simulator.isFood(5 * 11 + 5));
+        // the new tail sits on top of the old second to last segment
+        assertEquals(simulator.getBody(1, 3), simulator.getBody(1, 4));
+    }
+
+    // SnakeTest.MOVE_REQUEST under another ruleset
+    static String ruleset(String name) {
+        return SnakeTest.MOVE_REQUEST.replace("\"name\":\"standard\"", "\"name\":\"" + name + "\"");
+    }
+
+    @Test
+    void wrapsAcrossEdgesTest() throws IOException {
+        Simulator simulator = load(ruleset("wrapped"));
+        simulator.step(new int[]{Simulator.LEFT, Simulator.UP});
+
+        assertTrue(simulator.isAlive(0));
+        assertEquals(10, simulator.getHead(0));
+        simulator.step(new int[]{Simulator.DOWN, Simulator.UP});
+        assertTrue(simulator.isAlive(0));
+        assertEquals(10 * 11 + 10, simulator.getHead(0));
+    }
+
+    @Test
+    void constrictorGrowsEveryTurnTest() throws IOException {
+        Simulator simulator = load(ruleset("constrictor"));
+        simulator.step(new int[]{Simulator.UP, Simulator.LEFT});
+
+        assertEquals(4, simulator.getLength(0));
+        assertEquals(100, simulator.getHealth(0));
+        assertEquals(simulator.getBody(0, 2), simulator.getTail(0));
+        // growing is not eating, the food stays where it is
+        assertEquals(5, simulator.getLength(1));
+        assertTrue(simulator.isFood(5 * 11 + 5));
+
+        // from now on the stacked tail never leaves its cell
+        int tail = simulator.getTail(0);
+        simulator.step(new int[]{Simulator.RIGHT, Simulator.LEFT});
+        assertEquals(tail, simulator.getTail(0));
+        assertEquals(5, simulator.getLength(0));
+        simulator.undo();
+
+        simulator.undo();
+        assertEquals(3, simulator.getLength(0));
+        assertEquals(54, simulator.getHealth(0));
+        assertTrue(simulator.isFood(5 * 11 + 5));
+    }
+
+    @Test
+    void wallAndHeadToHeadTest() throws IOException {
+        Simulator simulator = load(SnakeTest.MOVE_REQUEST);
+        simulator.step(new int[]{Simulator.LEFT, Simulator.UP});
+        assertFalse(simulator.isAlive(0));
+        assertTrue(simulator.isAlive(1));
+        simulator.undo();
+        assertTrue(simulator.isAlive(0));
+
+        simulator = load(HEAD_TO_HEAD);
+        simulator.step(new int[]{Simulator.RIGHT, Simulator.LEFT});
+        assertFalse(simulator.isAlive(0));
+        assertTrue(simulator.isAlive(1));
+    }
+
+    @Test
+    void starvedSnakeLosesHeadToHeadTest() throws IOException {
+        // the longer snake starves on the move that meets our head, so it is gone before the collision
+        Simulator simulator = load(HEAD_TO_HEAD.replaceFirst("(\"id\":\"b\",\"name\":\"b\",\"health\":)90", "$11"));
+        simulator.step(new int[]{Simulator.RIGHT, Simulator.LEFT});
+
+        assertTrue(simulator.isAlive(0));
+        assertFalse(simulator.isAlive(1));
+        assertEquals(1, simulator.getOccupancy(3 + 2 * 11));
+        simulator.undo();
+        assertTrue(simulator.isAlive(1));
+        assertEquals(0, simulator.getOccupancy(3 + 2 * 11));
+        assertEquals(1, simulator.getOccupancy(4 + 2 * 11));
+    }
+
+    @Test
+    void undoRestoresEveryTurnTest() throws IOException {
+        Simulator simulator = load(SnakeTest.MOVE_REQUEST);
+        Random random = new Random(7);
+        List<String> snapshots = new ArrayList<>();
+        int[] moves = new int[simulator.getSnakeCount()];
+
+        for (int turn = 0; turn < 40 && simulator.getAliveCount() > 0; turn++) {
+            snapshots.add(snapshot(simulator));
+            for (int s = 0; s < moves.length; s++) {
+                moves[s] = random.nextInt(4);
+                for (int attempt = 0; attempt < 4 && !simulator.isSafe(s, moves[s]); attempt++) {
+                    moves[s] = (moves[s] + 1) % 4;
+                }
+            }
+            simulator.step(moves);
+        }
+        for (int turn = snapshots.size() - 1; turn >= 0; turn--) {
+            simulator.undo();
+            assertEquals(snapshots.get(turn), snapshot(simulator));
+        }
+    }
+
+    private String snapshot(Simulator simulator) {
+        StringBuilder builder = new StringBuilder();
+        for (int s = 0; s < simulator.getSnakeCount(); s++) {
+            builder.append(simulator.isAlive(s)).append(' ').append(simulator.getHealth(s)).append(" [");
+            for (int i = 0; i < simulator.getLength(s); i++) {
+                builder.append(simulator.getBody(s, i)).append(',');
+            }
+            builder.append("] ");
+        }
+        for (int cell = 0; cell < simulator.getWidth() * simulator.getHeight(); cell++) {
+            builder.append(simulator.getOccupancy(cell)).append(simulator.isFood(cell) ? 'f' : '.');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package com.battlesnake.starter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SnakeServerTest {
+
+    private String call(SnakeServer server, String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertEquals(200, connection.getResponseCode());
+        if (!path.equals("/metrics")) {
+            assertEquals(Responses.CONTENT_TYPE, connection.getContentType());
+        }
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                response.write(buffer, 0, read);
+            }
+        }
+        return new String(response.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private void servesRoutes(SnakeServer server) throws IOException {
+        server.start(0, new Snake.Handler());
+        try {
+            assertTrue(call(server, "GET", "/", null).contains("\"apiversion\":\"1\""));
+            assertEquals("{}", call(server, "POST", "/start", "{}"));
+            assertTrue(call(server, "POST", "/move", SnakeTest.MOVE_REQUEST).matches("\\{\"move\":\"(up|down|left|right)\"}"));
+            assertEquals("{}", call(server, "POST", "/end", "{}"));
+            assertTrue(call(server, "GET", "/metrics", null).contains("snake_request_seconds_count{route=\"/move\"}"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    void jdkServerTest() throws IOException {
+        servesRoutes(SnakeServer.create("jdk"));
+    }
+
+    @Test
+    void sparkServerTest() throws IOException {
+        servesRoutes(SnakeServer.create("spark"));
+    }
+
+    @Test
+    void responsesArePrecomputedTest() throws IOException {
+        Snake.Handler handler = new Snake.Handler();
+        byte[] move = handler.serve("/move", SnakeTest.MOVE_REQUEST.getBytes(StandardCharsets.UTF_8));
+
+        assertSame(Responses.bytes(Simulator.UP), move);
+        assertEquals("{\"move\":\"up\"}", new String(move, StandardCharsets.UTF_8));
+        assertSame(Responses.bytes(Responses.INDEX), handler.serve("/", new byte[0]));
+        assertSame(handler.index(), handler.index());
+    }
+}
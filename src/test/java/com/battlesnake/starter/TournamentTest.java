@@ -0,0 +1,41 @@
+package com.battlesnake.starter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TournamentTest {
+
+    @Test
+    void playsGamesToTheEndTest() throws Exception {
+        int timeout = (int) MoveSearch.MARGIN_MS + 20;
+        long rejected = Metrics.ADMISSION_REJECTED.sum();
+        Tournament tournament = new Tournament(7, 7, 2, "royale", timeout, timeout, 30);
+        Tournament.Report report = tournament.run(3, 3, 42);
+
+        assertEquals(3, report.getGames());
+        assertEquals(3, report.getWins(0) + report.getWins(1) + report.getDraws());
+        assertTrue(report.turns > 0 && report.turns <= 3 * 30);
+        // every turn asks at least one seat, and although games outnumber the search slots none is turned away
+        assertTrue(report.getDecisions() >= report.turns);
+        assertEquals(rejected, Metrics.ADMISSION_REJECTED.sum());
+    }
+
+    @Test
+    void soloGameRunsUntilDeathOrTurnLimitTest() {
+        int timeout = (int) MoveSearch.MARGIN_MS + 20;
+        Tournament.Report report = new Tournament(5, 5, 1, "standard", timeout, timeout, 20)
+                .play("solo", new Random(7));
+
+        assertTrue(report.turns > 0 && report.turns <= 20);
+    }
+
+    @Test
+    void rejectsUnknownRulesetTest() {
+        assertThrows(IllegalArgumentException.class, () -> new Tournament(11, 11, 2, "unknown", 500, 500, 10));
+    }
+}
@@ -0,0 +1,35 @@
+package com.battlesnake.starter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TranspositionTableTest {
+
+    @Test
+    void storeAndProbeTest() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = Zobrist.mix(42);
+        table.store(key, -1234, 7, TranspositionTable.EXACT, 2, 1);
+
+        long entry = table.probe(key);
+        assertEquals(-1234, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.EXACT, TranspositionTable.flag(entry));
+        assertEquals(2, TranspositionTable.move(entry));
+        assertEquals(TranspositionTable.MISS, table.probe(key + table.size()));
+    }
+
+    @Test
+    void keepsDeeperEntryTest() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = Zobrist.mix(7);
+        table.store(key, 10, 6, TranspositionTable.EXACT, 0, 1);
+        table.store(key, 20, 3, TranspositionTable.EXACT, 1, 1);
+        assertEquals(10, TranspositionTable.score(table.probe(key)));
+
+        // a new generation may always replace
+        table.store(key, 30, 1, TranspositionTable.EXACT, 1, 2);
+        assertEquals(30, TranspositionTable.score(table.probe(key)));
+    }
+}